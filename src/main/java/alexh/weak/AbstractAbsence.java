@@ -15,7 +15,6 @@
  */
 package alexh.weak;
 
-import alexh.LiteJoiner;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -23,6 +22,7 @@ abstract class AbstractAbsence<Parent extends Dynamic> implements DynamicChild {
 
     protected final Parent parent;
     protected final Object key;
+    private DynamicPath path;
 
     AbstractAbsence(Parent parent, Object key) {
         this.parent = parent;
@@ -34,6 +34,11 @@ abstract class AbstractAbsence<Parent extends Dynamic> implements DynamicChild {
         return parent;
     }
 
+    @Override
+    public DynamicPath path() {
+        return path = DynamicPath.cached(path, parent, key);
+    }
+
     @Override
     public Dynamic key() {
         return DynamicChild.key(this, key);
@@ -44,11 +49,22 @@ abstract class AbstractAbsence<Parent extends Dynamic> implements DynamicChild {
         return false;
     }
 
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        return null;
+    }
+
     @Override
     public Stream<Dynamic> children() {
         return Stream.empty();
     }
 
+    @Override
+    public boolean hasChildren() {
+        return false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -65,6 +81,6 @@ abstract class AbstractAbsence<Parent extends Dynamic> implements DynamicChild {
 
     @Override
     public String toString() {
-        return LiteJoiner.on(ARROW).join(DynamicChildLogic.using(this).getAscendingKeyChainWithRoot()) + ":absent";
+        return path() + ":absent";
     }
 }
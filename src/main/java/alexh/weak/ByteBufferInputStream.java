@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/** InputStream reading the remaining bytes of a ByteBuffer without copying, the input buffer is not modified */
+class ByteBufferInputStream extends InputStream {
+
+    /** @return stream of the input's remaining bytes, using the backing array directly where available */
+    static InputStream of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                buffer.remaining());
+        }
+        return new ByteBufferInputStream(buffer);
+    }
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) return 0;
+        if (!buffer.hasRemaining()) return -1;
+        final int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        // Buffer cast keeps Java 8 runtime compatibility, ByteBuffer#position(int) is a Java 9 override
+        ((Buffer) buffer).position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
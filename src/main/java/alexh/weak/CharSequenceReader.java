@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.io.Reader;
+
+/** Reader of a CharSequence without copying it into a String, the sequence should not be modified while read */
+class CharSequenceReader extends Reader {
+
+    private final CharSequence chars;
+    private int position;
+    private int mark;
+
+    CharSequenceReader(CharSequence chars) {
+        this.chars = chars;
+    }
+
+    @Override
+    public int read() {
+        return position < chars.length() ? chars.charAt(position++) : -1;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (length == 0) return 0;
+        if (position >= chars.length()) return -1;
+        final int end = Math.min(chars.length(), position + length);
+        if (chars instanceof String) ((String) chars).getChars(position, end, buffer, offset);
+        else if (chars instanceof StringBuilder) ((StringBuilder) chars).getChars(position, end, buffer, offset);
+        else for (int i = position; i < end; i++) buffer[offset + i - position] = chars.charAt(i);
+        final int read = end - position;
+        position = end;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        final int skipped = (int) Math.max(0, Math.min(n, chars.length() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) {
+        mark = position;
+    }
+
+    @Override
+    public void reset() {
+        position = mark;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -20,7 +20,6 @@ import static java.util.Collections.emptyList;
 import alexh.LiteJoiner;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 public abstract class ChildAbsence<Parent extends Dynamic> extends AbstractAbsence<Parent> implements IssueDescribingChild {
 
@@ -43,12 +42,12 @@ public abstract class ChildAbsence<Parent extends Dynamic> extends AbstractAbsen
 
     @Override
     public Dynamic get(Object key) {
-        return new DescriptionDeferringAbsence(this, key);
+        return Metrics.lookup(new DescriptionDeferringAbsence(this, key));
     }
 
     @Override
     public Object asObject() {
-        throw new NoSuchElementException(describeIssue(emptyList()));
+        throw DynamicExceptions.noSuchElement(() -> describeIssue(emptyList()));
     }
 
     public static class Null extends ChildAbsence<Dynamic> {
@@ -63,6 +63,8 @@ public class Converter {
                 .append(Iterable.class, IterableConverter::new)
                 .append(Optional.class, OptionalConverter::new)
                 .append(java.util.Date.class, UtilDateInstantConverter::new)
+                .append(String.class, CharSequenceConverter::new)
+                .append(CharSequence.class, CharSequenceConverter::new)
                     // fallback
                 .append(Object.class, Converter::new)
         );
@@ -83,12 +85,16 @@ public class Converter {
             .map(Map.Entry::getValue).get()).apply(value);
     }
 
-    private static boolean doesNotThrow(Supplier<?> method) {
+    private static boolean doesNotThrow(Class<?> type, Supplier<?> method) {
         try {
             method.get();
+            Metrics.conversion(type, true);
             return true;
         }
-        catch (RuntimeException ex) { return false; }
+        catch (RuntimeException ex) {
+            Metrics.conversion(type, false);
+            return false;
+        }
     }
 
     /** wrapped inner value, the conversion target */
@@ -108,7 +114,7 @@ public class Converter {
 
     /** @return {@link #intoString} will not throw an exception */
     public boolean intoStringWorks() {
-        return doesNotThrow(this::intoString);
+        return doesNotThrow(String.class, this::intoString);
     }
 
     /**
@@ -121,7 +127,7 @@ public class Converter {
 
     /** @return {@link #intoInteger} will not throw an exception */
     public boolean intoIntegerWorks() {
-        return doesNotThrow(this::intoInteger);
+        return doesNotThrow(Integer.class, this::intoInteger);
     }
 
     /**
@@ -134,7 +140,7 @@ public class Converter {
 
     /** @return {@link #intoLong} will not throw an exception */
     public boolean intoLongWorks() {
-        return doesNotThrow(this::intoLong);
+        return doesNotThrow(Long.class, this::intoLong);
     }
 
     /**
@@ -147,7 +153,7 @@ public class Converter {
 
     /** @return {@link #intoDouble} will not throw an exception */
     public boolean intoDoubleWorks() {
-        return doesNotThrow(this::intoDouble);
+        return doesNotThrow(Double.class, this::intoDouble);
     }
 
     /**
@@ -160,7 +166,7 @@ public class Converter {
 
     /** @return {@link #intoDecimal} will not throw an exception */
     public boolean intoDecimalWorks() {
-        return doesNotThrow(this::intoDecimal);
+        return doesNotThrow(BigDecimal.class, this::intoDecimal);
     }
 
     /**
@@ -176,7 +182,7 @@ public class Converter {
 
     /** @return {@link #intoMap} will not throw an exception */
     public boolean intoMapWorks() {
-        return doesNotThrow(this::intoMap);
+        return doesNotThrow(Map.class, this::intoMap);
     }
 
     /**
@@ -194,7 +200,7 @@ public class Converter {
 
     /** @return {@link #intoList} will not throw an exception */
     public boolean intoListWorks() {
-        return doesNotThrow(this::intoList);
+        return doesNotThrow(List.class, this::intoList);
     }
 
     /**
@@ -208,7 +214,7 @@ public class Converter {
 
     /** @return {@link #intoLocalDateTime} will not throw an exception */
     public boolean intoLocalDateTimeWorks() {
-        return doesNotThrow(this::intoLocalDateTime);
+        return doesNotThrow(LocalDateTime.class, this::intoLocalDateTime);
     }
 
     /**
@@ -222,7 +228,7 @@ public class Converter {
 
     /** @return {@link #intoZonedDateTime} will not throw an exception */
     public boolean intoZonedDateTimeWorks() {
-        return doesNotThrow(this::intoZonedDateTime);
+        return doesNotThrow(ZonedDateTime.class, this::intoZonedDateTime);
     }
 
     /**
@@ -477,6 +483,82 @@ public class Converter {
         }
     }
 
+    /**
+     * Parses numbers & dates directly from the characters, without an intermediate String.
+     * Plain integers, the majority of numeric text, are parsed without a BigDecimal
+     */
+    static class CharSequenceConverter extends TypeConverter<CharSequence> {
+
+        /** 18 digits always fit in a long */
+        private static final int MAX_LONG_DIGITS = 18;
+
+        CharSequenceConverter(Object o) {
+            super(o);
+        }
+
+        /** @return plain integer value, or null if the characters are not a plain integer of up to 18 digits */
+        private Long plainLong() {
+            final CharSequence chars = literal();
+            final int length = chars.length();
+            if (length == 0) return null;
+
+            int i = 0;
+            final char first = chars.charAt(0);
+            final boolean negative = first == '-';
+            if (negative || first == '+') i++;
+            if (i == length || length - i > MAX_LONG_DIGITS) return null;
+
+            long value = 0;
+            for (; i < length; i++) {
+                final char c = chars.charAt(i);
+                if (c < '0' || c > '9') return null;
+                value = value * 10 + (c - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        @Override
+        public int intoInteger() {
+            final Long plain = plainLong();
+            if (plain == null || plain < Integer.MIN_VALUE || plain > Integer.MAX_VALUE) return super.intoInteger();
+            return plain.intValue();
+        }
+
+        @Override
+        public long intoLong() {
+            final Long plain = plainLong();
+            return plain != null ? plain : super.intoLong();
+        }
+
+        @Override
+        public double intoDouble() {
+            final Long plain = plainLong();
+            return plain != null ? (double) plain : super.intoDouble();
+        }
+
+        @Override
+        public BigDecimal intoDecimal() {
+            final Long plain = plainLong();
+            if (plain != null) return BigDecimal.valueOf(plain);
+
+            final CharSequence chars = literal();
+            if (chars instanceof String) return new BigDecimal((String) chars);
+            final char[] digits = new char[chars.length()];
+            for (int i = 0; i < digits.length; i++) digits[i] = chars.charAt(i);
+            return new BigDecimal(digits);
+        }
+
+        @Override
+        public LocalDateTime intoLocalDateTime() {
+            return LocalDateTime.from(ConverterTimeFormats.parseWithDefaults(literal()));
+        }
+
+        @Override
+        public ZonedDateTime intoZonedDateTime() {
+            return ZonedDateTime.from(ConverterTimeFormats.parseWithDefaults(literal()));
+        }
+    }
+
     static class UtilDateInstantConverter extends TypeConverter<java.util.Date> {
 
         UtilDateInstantConverter(Object o) {
@@ -44,9 +44,15 @@ public class ConverterMaybe {
         this.o = o;
     }
 
-    private <T> Optional<T> optional(Function<Converter, T> fn) {
-        try { return Optional.ofNullable(fn.apply(Converter.convert(o))); }
-        catch (RuntimeException ex) { return Optional.empty(); }
+    private <T> Optional<T> optional(Class<? super T> type, Function<Converter, T> fn) {
+        final Optional<T> converted;
+        try { converted = Optional.ofNullable(fn.apply(Converter.convert(o))); }
+        catch (RuntimeException ex) {
+            Metrics.conversion(type, false);
+            return Optional.empty();
+        }
+        Metrics.conversion(type, true);
+        return converted;
     }
 
     /**
@@ -54,7 +60,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<String> intoString() {
-        return optional(Converter::intoString);
+        return optional(String.class, Converter::intoString);
     }
 
     /**
@@ -62,7 +68,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<Integer> intoInteger() {
-        return optional(Converter::intoInteger);
+        return optional(Integer.class, Converter::intoInteger);
     }
 
     /**
@@ -70,7 +76,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<Long> intoLong() {
-        return optional(Converter::intoLong);
+        return optional(Long.class, Converter::intoLong);
     }
 
     /**
@@ -78,7 +84,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<Double> intoDouble() {
-        return optional(Converter::intoDouble);
+        return optional(Double.class, Converter::intoDouble);
     }
 
     /**
@@ -86,7 +92,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<BigDecimal> intoDecimal() {
-        return optional(Converter::intoDecimal);
+        return optional(BigDecimal.class, Converter::intoDecimal);
     }
 
     /**
@@ -94,7 +100,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<Map> intoMap() {
-        return optional(Converter::intoMap);
+        return optional(Map.class, Converter::intoMap);
     }
 
     /**
@@ -102,7 +108,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<List> intoList() {
-        return optional(Converter::intoList);
+        return optional(List.class, Converter::intoList);
     }
 
     /**
@@ -110,7 +116,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<LocalDateTime> intoLocalDateTime() {
-        return optional(Converter::intoLocalDateTime);
+        return optional(LocalDateTime.class, Converter::intoLocalDateTime);
     }
 
     /**
@@ -118,7 +124,7 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<ZonedDateTime> intoZonedDateTime() {
-        return optional(Converter::intoZonedDateTime);
+        return optional(ZonedDateTime.class, Converter::intoZonedDateTime);
     }
 
     /**
@@ -126,6 +132,6 @@ public class ConverterMaybe {
      * never throws
      */
     public Optional<ZonedDateTime> intoZonedDateTimeOrUse(ZoneId fallback) {
-        return optional(c -> c.intoZonedDateTimeOrUse(fallback));
+        return optional(ZonedDateTime.class, c -> c.intoZonedDateTimeOrUse(fallback));
     }
 }
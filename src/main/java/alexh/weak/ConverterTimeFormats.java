@@ -9,6 +9,8 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.SignStyle;
 import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -186,13 +188,13 @@ public class ConverterTimeFormats {
      * ISO_PERMISSIVE -> DAY_MONTH_YEAR_PERMISSIVE_DASH -> UTIL_DATE_TO_STRING -> EPOCH_MILLIS_PARSER
      */
     public static final Function<CharSequence, TemporalAccessor> ALL_PARSER = orderedParseAttempter(
-        ISO_PERMISSIVE::parse,
-        DAY_MONTH_YEAR_PERMISSIVE_DASH::parse,
-        DAY_MONTH_YEAR_PERMISSIVE_SLASH::parse,
-        UTIL_DATE_TO_STRING::parse,
-        UTIL_DATE_WITHOUT_ZONE_TO_STRING::parse,
-        ISO_LONESOME_YEAR::parse,
-        EPOCH_MILLIS_PARSER);
+        named("ISO_PERMISSIVE", ISO_PERMISSIVE::parse),
+        named("DAY_MONTH_YEAR_PERMISSIVE_DASH", DAY_MONTH_YEAR_PERMISSIVE_DASH::parse),
+        named("DAY_MONTH_YEAR_PERMISSIVE_SLASH", DAY_MONTH_YEAR_PERMISSIVE_SLASH::parse),
+        named("UTIL_DATE_TO_STRING", UTIL_DATE_TO_STRING::parse),
+        named("UTIL_DATE_WITHOUT_ZONE_TO_STRING", UTIL_DATE_WITHOUT_ZONE_TO_STRING::parse),
+        named("ISO_LONESOME_YEAR", ISO_LONESOME_YEAR::parse),
+        named("EPOCH_MILLIS_PARSER", EPOCH_MILLIS_PARSER));
 
     /**
      * Tries all permissive parsers (with defaults where applicable), taking the first success or throwing the first
@@ -200,35 +202,65 @@ public class ConverterTimeFormats {
      * ISO_PERMISSIVE -> DAY_MONTH_YEAR_PERMISSIVE_DASH -> UTIL_DATE_TO_STRING -> EPOCH_MILLIS_PARSER
      */
     public static final Function<CharSequence, TemporalAccessor> ALL_PARSER_WITH_DEFAULTS = orderedParseAttempter(
-        ISO_PERMISSIVE_WITH_DEFAULTS::parse,
-        DAY_MONTH_YEAR_PERMISSIVE_DASH_WITH_DEFAULTS::parse,
-        DAY_MONTH_YEAR_PERMISSIVE_SLASH_WITH_DEFAULTS::parse,
-        UTIL_DATE_TO_STRING::parse,
-        UTIL_DATE_WITHOUT_ZONE_TO_STRING::parse,
-        ISO_LONESOME_YEAR_WITH_DEFAULTS::parse,
-        EPOCH_MILLIS_PARSER);
+        named("ISO_PERMISSIVE_WITH_DEFAULTS", ISO_PERMISSIVE_WITH_DEFAULTS::parse),
+        named("DAY_MONTH_YEAR_PERMISSIVE_DASH_WITH_DEFAULTS", DAY_MONTH_YEAR_PERMISSIVE_DASH_WITH_DEFAULTS::parse),
+        named("DAY_MONTH_YEAR_PERMISSIVE_SLASH_WITH_DEFAULTS", DAY_MONTH_YEAR_PERMISSIVE_SLASH_WITH_DEFAULTS::parse),
+        named("UTIL_DATE_TO_STRING", UTIL_DATE_TO_STRING::parse),
+        named("UTIL_DATE_WITHOUT_ZONE_TO_STRING", UTIL_DATE_WITHOUT_ZONE_TO_STRING::parse),
+        named("ISO_LONESOME_YEAR_WITH_DEFAULTS", ISO_LONESOME_YEAR_WITH_DEFAULTS::parse),
+        named("EPOCH_MILLIS_PARSER", EPOCH_MILLIS_PARSER));
 
     /**
      * Returns an ordered functional blend of all input parsers. The attempter will try all functions until it succeeds.
-     * If none succeed will re-throw the first exception
+     * If none succeed will re-throw the first exception. Each attempt is recorded by any registered
+     * {@link DynamicMetrics} by the parser's toString
      * @param parsers ordered sequence of parsers to try to convert a CharSequence into a TemporalAccessor
      * @return ordered functional blend of all input parsers
      */
     @SafeVarargs
     public static Function<CharSequence, TemporalAccessor> orderedParseAttempter(Function<CharSequence, TemporalAccessor>... parsers) {
         return date -> {
+            final DynamicMetrics metrics = Metrics.current;
+            final Object event = Jfr.EVENTS != null ? Jfr.EVENTS.timeParseBegin() : null;
+            List<String> failed = null;
             RuntimeException first = null;
             for (Function<CharSequence, TemporalAccessor> parser : parsers) {
-                try { return parser.apply(date); }
+                try {
+                    final TemporalAccessor parsed = parser.apply(date);
+                    if (metrics != null) metrics.timeParse(parser.toString(), true);
+                    if (event != null) Jfr.EVENTS.timeParseCommit(event, date, parser.toString(), failed);
+                    return parsed;
+                }
                 catch (RuntimeException ex) {
+                    if (metrics != null) metrics.timeParse(parser.toString(), false);
+                    if (event != null) {
+                        if (failed == null) failed = new ArrayList<>();
+                        failed.add(parser.toString());
+                    }
                     if (first == null) first = ex;
                 }
             }
+            if (event != null) Jfr.EVENTS.timeParseCommit(event, date, null, failed);
             if (first == null) throw new IllegalStateException("Empty parse attempter");
             throw first;
         };
     }
 
+    /** @return parser with a toString of the input name, naming it in {@link DynamicMetrics} */
+    private static Function<CharSequence, TemporalAccessor> named(String name, Function<CharSequence, TemporalAccessor> parser) {
+        return new Function<CharSequence, TemporalAccessor>() {
+            @Override
+            public TemporalAccessor apply(CharSequence date) {
+                return parser.apply(date);
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
     /**
      * Convenience method for permissive parsing using the {@link #ALL_PARSER}
      * @param dateChars date-string
@@ -17,7 +17,6 @@ package alexh.weak;
 
 import static java.util.stream.Collectors.toList;
 import java.util.LinkedList;
-import java.util.NoSuchElementException;
 
 /** Must form a chain of DescriptionDeferringAbsentChild with a IssueDescribingDynamicChild parent */
 class DescriptionDeferringAbsence extends AbstractAbsence<DynamicChild> {
@@ -32,14 +31,16 @@ class DescriptionDeferringAbsence extends AbstractAbsence<DynamicChild> {
 
     @Override
     public Dynamic get(Object key) {
-        return new DescriptionDeferringAbsence(this, key);
+        return Metrics.lookup(new DescriptionDeferringAbsence(this, key));
     }
 
     @Override
     public Object asObject() {
-        LinkedList<DynamicChild> chainFromDescriber = DynamicChildLogic.using(this).getAscendingChainAllWith(DescriptionDeferringAbsence.class::isInstance);
+        throw DynamicExceptions.noSuchElement(() -> {
+            LinkedList<DynamicChild> chainFromDescriber = DynamicChildLogic.using(this).getAscendingChainAllWith(DescriptionDeferringAbsence.class::isInstance);
 
-        throw new NoSuchElementException(((IssueDescribingChild) chainFromDescriber.getFirst().parent())
-            .describeIssue(chainFromDescriber.stream().map(child -> child.key().asObject()).collect(toList())));
+            return ((IssueDescribingChild) chainFromDescriber.getFirst().parent())
+                .describeIssue(chainFromDescriber.stream().map(child -> child.key().asObject()).collect(toList()));
+        });
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.uncheckedGet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Pool of namespace aware {@link DocumentBuilder}s. Builders aren't thread-safe so each is used by one thread at a
+ * time, then reset & returned to the pool. Up to {@code maxIdle} builders are retained, extra are discarded
+ * <p>
+ * Only fatal errors, ie malformed xml, fail parsing. Warnings & recoverable errors are ignored, as the default
+ * handler does after printing them. Builders are non-validating, so recoverable errors are rare
+ */
+class DocumentBuilderPool {
+
+    /**
+     * Fatal errors are thrown, rather than also being printed to stderr as the default handler does.
+     * Warnings & recoverable errors, such as validity errors, are silently ignored & parsing continues
+     */
+    private static final ErrorHandler THROWING_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {}
+
+        @Override
+        public void error(SAXParseException exception) {}
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXParseException {
+            throw exception;
+        }
+    };
+
+    private final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    private final Queue<DocumentBuilder> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdle;
+
+    DocumentBuilderPool(int maxIdle) {
+        if (maxIdle < 1) throw new IllegalArgumentException("maxIdle must be positive, was " + maxIdle);
+        this.maxIdle = maxIdle;
+        factory.setNamespaceAware(true);
+    }
+
+    /** @return the document element of the parsed input */
+    Node parse(InputSource xml) {
+        final DocumentBuilder builder = borrow();
+        // builders that fail are discarded, rather than trusting their state
+        final Node element = uncheckedGet(() -> builder.parse(xml).getDocumentElement());
+        builder.reset();
+        giveBack(builder);
+        return element;
+    }
+
+    private DocumentBuilder borrow() {
+        final DocumentBuilder builder = idle.poll();
+        if (builder != null) {
+            idleCount.decrementAndGet();
+            builder.setErrorHandler(THROWING_ERROR_HANDLER);
+            return builder;
+        }
+        synchronized (factory) { // factories aren't thread-safe
+            final DocumentBuilder created = uncheckedGet(factory::newDocumentBuilder);
+            created.setErrorHandler(THROWING_ERROR_HANDLER);
+            return created;
+        }
+    }
+
+    private void giveBack(DocumentBuilder builder) {
+        if (idleCount.incrementAndGet() <= maxIdle) idle.offer(builder);
+        else idleCount.decrementAndGet();
+    }
+
+    /** @return number of builders currently pooled */
+    int idle() {
+        return idleCount.get();
+    }
+}
@@ -21,7 +21,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
-import java.util.regex.Pattern;
 import java.util.stream.*;
 
 /**
@@ -57,6 +56,7 @@ public interface Dynamic extends Weak<Dynamic> {
      * nested dynamic object
      * See {@link Converter} to perform simple conversions to these types where applicable
      * See {@link XmlDynamic} for an XML handling dynamic representation
+     * See {@link JsonDynamic} for a lazily read JSON dynamic representation
      * @param val some value
      * @return Dynamic representation of the input value
      */
@@ -69,6 +69,26 @@ public interface Dynamic extends Weak<Dynamic> {
         return new DynamicSomething(val);
     }
 
+    /**
+     * Wraps a value as {@link #from(Object)}, matching keys of the whole tree by the input mode. Each map or XML
+     * element indexes its children by normalized key the first time it's read, so later lookups of any spelling are
+     * hash lookups. Exact keys are still preferred, so {@code get("customerId")} returns {@code customerId} over
+     * {@code customer_id} when both are present
+     * <pre>{@code
+     *     Dynamic.from(message, KeyMatching.NORMALIZED).dget("customer_id.Name"); // also matches customerId.name
+     *     Dynamic.from(new XmlDynamic(xml), KeyMatching.CASE_INSENSITIVE).get("PRODUCT|Name");
+     * }</pre>
+     * Read children are cached, so the wrapped tree should not be modified while in use
+     * @param val some value, or Dynamic
+     * @param matching key matching mode
+     * @return Dynamic representation of the input value, matching keys by the input mode
+     */
+    static Dynamic from(Object val, KeyMatching matching) {
+        final Dynamic dynamic = from(val);
+        if (matching == KeyMatching.EXACT || !dynamic.isPresent()) return dynamic;
+        return new KeyMatchingDynamic(dynamic, matching);
+    }
+
     /**
      * Returns a dynamic wrapping the immediate child of this instance with the input key,
      * or a dynamic representing the lack of such a child. This is never null.
@@ -80,6 +100,22 @@ public interface Dynamic extends Weak<Dynamic> {
     /** @return stream of all immediate children of this instance */
     Stream<Dynamic> children();
 
+    /**
+     * Returns if this instance has any immediate children, consistent with {@link #children()} being non-empty
+     * but without creating any child wrappers
+     * @return this instance has children
+     */
+    default boolean hasChildren() {
+        return children().findAny().isPresent();
+    }
+
+    /**
+     * @return this instance is present & has no children, ie is an end-point value
+     */
+    default boolean isLeaf() {
+        return isPresent() && !hasChildren();
+    }
+
     /**
      * Performs multiple String gets as described by an input key path
      * so {@code dynamic.get("one.two.three", ".")}
@@ -90,7 +126,7 @@ public interface Dynamic extends Weak<Dynamic> {
      */
     default Dynamic get(String keyPath, String separator) {
         Dynamic result = this;
-        for (String part : keyPath.split(Pattern.quote(separator)))
+        for (String part : KeyPath.split(keyPath, separator))
             result = result.get(part);
         return result;
     }
@@ -105,6 +141,54 @@ public interface Dynamic extends Weak<Dynamic> {
         return get(dotSeparatedPath, ".");
     }
 
+    /**
+     * Selects multiple dot separated paths, getting keys shared by the paths once
+     * ie {@code dynamic.select("order.customer.name", "order.customer.address.city")} gets {@code order->customer}
+     * once. Paths selected repeatedly can be compiled once with {@link PathSet#of(String...)}
+     * @param dotSeparatedPaths paths as would be passed to {@link #dget(String)}
+     * @return results in path order, each equivalent to {@link #dget(String)} of its path
+     */
+    default Dynamic[] select(String... dotSeparatedPaths) {
+        return PathSet.of(dotSeparatedPaths).select(this);
+    }
+
+    /**
+     * Returns the immediate child with the input key if present, otherwise null. Unlike {@link #get(Object)} misses
+     * create no absence, so this suits sparse lookups that only need to know if values are there.
+     * Absences have no children so always return null
+     * @param key child key
+     * @return present child matching the input key, or null
+     */
+    default Dynamic getOrNull(Object key) {
+        final Dynamic child = get(key);
+        return child.isPresent() ? child : null;
+    }
+
+    /**
+     * As {@link #dget(String)} returning the nested child if present, otherwise null, without creating absences
+     * ie {@code dynamic.dgetOrNull("some.path.to.somewhere")}
+     * @see #getOrNull(Object)
+     * @param dotSeparatedPath successive child keys separated by "." character
+     * @return present nested child, or null
+     */
+    default Dynamic dgetOrNull(String dotSeparatedPath) {
+        Dynamic result = this;
+        for (String key : KeyPath.split(dotSeparatedPath, ".")) {
+            result = result.getOrNull(key);
+            if (result == null) return null;
+        }
+        return result.isPresent() ? result : null;
+    }
+
+    /**
+     * Returns if a nested child is present, as {@code dget(dotSeparatedPath).isPresent()} without creating absences
+     * @param dotSeparatedPath successive child keys separated by "." character
+     * @return nested child is present
+     */
+    default boolean has(String dotSeparatedPath) {
+        return dgetOrNull(dotSeparatedPath) != null;
+    }
+
     /**
      * Returns Weak instance wrapping the key for this node. To get the inner key call {@link Weak#asObject()}
      * Top-level Dynamic objects have the key value {@link Dynamic#ROOT_KEY}
@@ -112,6 +196,15 @@ public interface Dynamic extends Weak<Dynamic> {
      */
     Weak<?> key();
 
+    /**
+     * Returns the key path of this instance from its root, ie {@code root->product->investment}. Children share
+     * their parent's path, so this is cheap to call at any depth
+     * @return key path of this instance
+     */
+    default DynamicPath path() {
+        return DynamicPath.root(key().asObject());
+    }
+
     /**
      * @see #allChildrenDepthFirst()
      * @return stream of all children of this instance at any depth
@@ -142,7 +235,8 @@ public interface Dynamic extends Weak<Dynamic> {
      * @return stream of all children of this instance at any depth
      */
     default Stream<Dynamic> allChildrenDepthFirst() {
-        return children().flatMap(child -> Stream.concat(Stream.of(child), child.allChildrenDepthFirst()));
+        final Stream<Dynamic> children = DynamicChildLogic.depthFirst(this);
+        return Jfr.EVENTS != null ? Jfr.EVENTS.traversal(children, "depth-first") : children;
     }
 
     /**
@@ -166,7 +260,9 @@ public interface Dynamic extends Weak<Dynamic> {
      * @return stream of all children of this instance at any depth
      */
     default Stream<Dynamic> allChildrenBreadthFirst() {
-        return StreamSupport.stream(spliteratorUnknownSize(new BreadthChildIterator(this), Spliterator.ORDERED), false);
+        final Stream<Dynamic> children =
+            StreamSupport.stream(spliteratorUnknownSize(new BreadthChildIterator(this), Spliterator.ORDERED), false);
+        return Jfr.EVENTS != null ? Jfr.EVENTS.traversal(children, "breadth-first") : children;
     }
 
     /**
@@ -176,13 +272,14 @@ public interface Dynamic extends Weak<Dynamic> {
      * @return unwrapped inner value cast to input type
      * @throws ClassCastException when the wrapped instance that cannot be cast to the input
      * @throws java.util.NoSuchElementException when this dynamic is not present, ie wraps no, or null, value
+     * @see DynamicExceptions
      */
     @Override
     default <T> T as(Class<T> type) {
-        try { return type.cast(asObject()); }
-        catch (ClassCastException ex) {
-            throw new ClassCastException(format("'root' miscast: %s. Avoid by checking `if (aDynamic.is(%s.class)) ...` " +
-                "or using `aDynamic.maybe().as(%<s.class)`", ex.getMessage(), type.getSimpleName()));
-        }
+        final Object value = asObject();
+        if (value == null || type.isInstance(value)) return type.cast(value);
+        throw DynamicExceptions.classCast(() -> format("'root' miscast: %s. Avoid by checking " +
+            "`if (aDynamic.is(%s.class)) ...` or using `aDynamic.maybe().as(%<s.class)`",
+            DynamicExceptions.castMessage(value, type), type.getSimpleName()));
     }
 }
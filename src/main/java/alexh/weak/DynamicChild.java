@@ -41,17 +41,24 @@ interface DynamicChild extends Dynamic {
 
     Dynamic parent();
 
+    @Override
+    default DynamicPath path() {
+        return parent().path().child(key().asObject());
+    }
+
     /* provides a better ClassCastMessage */
     @Override
     default <T> T as(Class<T> type) {
-        try { return type.cast(asObject()); }
-        catch (ClassCastException ex) {
+        final Object value = asObject();
+        if (value == null || type.isInstance(value)) return type.cast(value);
+        throw DynamicExceptions.classCast(() -> {
             LinkedList<Object> ascendingKeyChain = using(this).getAscendingKeyChainWithRoot();
             Object thisKey = ascendingKeyChain.pollLast();
             ascendingKeyChain.add(format("*%s*", thisKey));
-            throw new ClassCastException(format("'%s' miscast in path %s: %s. Avoid by checking " +
+            return format("'%s' miscast in path %s: %s. Avoid by checking " +
                     "`if (aDynamic.is(%s.class)) ...` or using `aDynamic.maybe().as(%<s.class)`",
-                thisKey, LiteJoiner.on(ARROW).join(ascendingKeyChain), ex.getMessage(), type.getSimpleName()));
-        }
+                thisKey, LiteJoiner.on(ARROW).join(ascendingKeyChain), DynamicExceptions.castMessage(value, type),
+                type.getSimpleName());
+        });
     }
 }
@@ -15,7 +15,6 @@
  */
 package alexh.weak;
 
-import static java.util.stream.Collectors.toCollection;
 import java.util.LinkedList;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -26,6 +25,12 @@ class DynamicChildLogic {
         return new DynamicChildLogic(child);
     }
 
+    /** @return all children of the input at any depth, depth first, see {@link Dynamic#allChildrenDepthFirst()} */
+    static Stream<Dynamic> depthFirst(Dynamic parent) {
+        return parent.children().flatMap(child -> child.hasChildren() ?
+            Stream.concat(Stream.of(child), depthFirst(child)) : Stream.of(child));
+    }
+
     private final DynamicChild child;
 
     private DynamicChildLogic(DynamicChild child) {
@@ -33,10 +38,7 @@ class DynamicChildLogic {
     }
 
     public LinkedList<Object> getAscendingKeyChainWithRoot() {
-        LinkedList<DynamicChild> ascending = getAscendingChainAllWith(dc -> true);
-        return Stream.concat(Stream.of(ascending.getFirst().parent()), ascending.stream())
-            .map(child -> child.key().asObject())
-            .collect(toCollection(LinkedList::new));
+        return new LinkedList<>(child.path().keys());
     }
 
     public LinkedList<DynamicChild> getAscendingChainAllWith(Predicate<DynamicChild> pd) {
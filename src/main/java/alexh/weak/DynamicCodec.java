@@ -0,0 +1,598 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.unchecked;
+import static alexh.Unchecker.uncheckedGet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Compact schema-less binary encoding of Dynamic values, for shipping trees between processes.
+ * <pre>{@code
+ *     DynamicCodec.write(task, socketOut);
+ *     ...
+ *     Dynamic task = DynamicCodec.read(socketIn);
+ * }</pre>
+ * Values are tagged, lengths & integers are varints & String map keys are written once, later occurrences referencing
+ * a key dictionary shared by the whole message. With {@link Option#DEDUPLICATE} repeated equal maps & collections are
+ * written once & referenced after, decoding into shared instances.
+ * <p>
+ * Values round-trip as the kind {@link Dynamic#from(Object)} wraps: maps decode as LinkedHashMaps, lists as ArrayLists,
+ * sets as LinkedHashSets & other collections as ArrayDeques. Strings, characters, booleans, boxed & big numbers,
+ * UUIDs, Dates, java.time dates & Optionals keep their types, any other value throws
+ * {@link IllegalArgumentException}. Java serialization is never used, so decoding a message only ever creates these
+ * types. Nested Dynamics are written as their values.
+ * <p>
+ * Each message is self-delimiting, {@code "DC" version:byte flags:byte length:varint value}, so a stream may carry
+ * consecutive messages.
+ *
+ * @author Alex Butler
+ */
+public class DynamicCodec {
+
+    /** Encoding options */
+    public enum Option {
+        /** write repeated equal maps & collections once, decoding as shared instances */
+        DEDUPLICATE
+    }
+
+    private static final byte[] MAGIC = {'D', 'C'};
+    private static final byte VERSION = 1;
+    private static final byte DEDUPLICATED_FLAG = 1;
+    /** magic, version, flags & a 5 byte varint body length */
+    private static final int MAX_HEADER_LENGTH = MAGIC.length + 7;
+    /** stream bodies are read at most this many bytes at a time */
+    private static final int BODY_CHUNK_LENGTH = 8192;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte FLOAT = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte CHARACTER = 11;
+    private static final byte STRING = 12;
+    private static final byte KEY = 13;
+    private static final byte KEY_REF = 14;
+    private static final byte MAP = 15;
+    private static final byte LIST = 16;
+    private static final byte SET = 17;
+    private static final byte COLLECTION = 18;
+    private static final byte SUBTREE_REF = 19;
+    private static final byte UUID_VALUE = 20;
+    private static final byte DATE = 21;
+    private static final byte INSTANT = 22;
+    private static final byte LOCAL_DATE = 23;
+    private static final byte LOCAL_DATE_TIME = 24;
+    private static final byte ZONED_DATE_TIME = 25;
+    private static final byte OFFSET_DATE_TIME = 26;
+    private static final byte OPTIONAL = 27;
+    // 28 unused
+    /** Double with an integral value, as a zigzag varint */
+    private static final byte INTEGRAL_DOUBLE = 29;
+
+    /**
+     * Writes a message encoding the input's value
+     * @param dynamic value to write
+     * @param out destination, not flushed or closed
+     * @param options encoding options
+     */
+    public static void write(Dynamic dynamic, OutputStream out, Option... options) {
+        final Encoder encoder = encode(dynamic, options);
+        unchecked(() -> out.write(encoder.bytes, encoder.start, encoder.size - encoder.start));
+    }
+
+    /**
+     * Writes a message encoding the input's value at the buffer's position, advancing it
+     * @param dynamic value to write
+     * @param out destination
+     * @param options encoding options
+     * @throws java.nio.BufferOverflowException if the message doesn't fit, with the buffer unchanged
+     */
+    public static void write(Dynamic dynamic, ByteBuffer out, Option... options) {
+        final Encoder encoder = encode(dynamic, options);
+        out.put(encoder.bytes, encoder.start, encoder.size - encoder.start);
+    }
+
+    /**
+     * @param dynamic value to encode
+     * @param options encoding options
+     * @return message encoding the input's value
+     */
+    public static byte[] toBytes(Dynamic dynamic, Option... options) {
+        final Encoder encoder = encode(dynamic, options);
+        return Arrays.copyOfRange(encoder.bytes, encoder.start, encoder.size);
+    }
+
+    /** Encodes the value after space reserved for the header, then writes the header just before it */
+    private static Encoder encode(Dynamic dynamic, Option... options) {
+        final boolean deduplicate = Arrays.asList(options).contains(Option.DEDUPLICATE);
+        final Encoder encoder = new Encoder(deduplicate);
+        encoder.size = MAX_HEADER_LENGTH;
+        encoder.writeValue(dynamic);
+
+        final int bodyLength = encoder.size - MAX_HEADER_LENGTH;
+        int headerLength = MAGIC.length + 3;
+        for (int remaining = bodyLength >>> 7; remaining != 0; remaining >>>= 7) headerLength++;
+
+        final int end = encoder.size;
+        encoder.start = encoder.size = MAX_HEADER_LENGTH - headerLength;
+        encoder.writeBytes(MAGIC, 0, MAGIC.length);
+        encoder.writeByte(VERSION);
+        encoder.writeByte(deduplicate ? DEDUPLICATED_FLAG : 0);
+        encoder.writeVarint(bodyLength);
+        encoder.size = end;
+        return encoder;
+    }
+
+    /**
+     * Reads the next message from the stream, reading no further than its end
+     * @param in source, not closed
+     * @return dynamic wrapping the decoded value
+     */
+    public static Dynamic read(InputStream in) {
+        return uncheckedGet(() -> {
+            final DataInputStream data = new DataInputStream(in);
+            final byte[] header = new byte[MAGIC.length + 2];
+            data.readFully(header);
+            final Decoder headerDecoder = new Decoder(ByteBuffer.wrap(header), false);
+            headerDecoder.readHeader();
+
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                final int b = data.readUnsignedByte();
+                // the 5th byte holds the top 3 bits of a non-negative int, without a continuation bit
+                if (shift == 28 && b > 0x07) throw new IllegalArgumentException("Malformed DynamicCodec message length");
+                length |= (b & 0x7F) << shift;
+                if (b < 0x80) break;
+            }
+            if (length < 0) throw new IllegalArgumentException("Malformed DynamicCodec message length");
+            final ByteBuffer body = readBody(data, length);
+            return Dynamic.from(new Decoder(body, headerDecoder.deduplicated).readValue());
+        });
+    }
+
+    /**
+     * Reads a message body in chunks, growing the buffer only as bytes arrive, so a header can't make a short stream
+     * allocate its claimed length up front
+     * @throws EOFException if the stream ends before the body
+     */
+    private static ByteBuffer readBody(DataInputStream data, int length) throws IOException {
+        byte[] body = new byte[Math.min(length, BODY_CHUNK_LENGTH)];
+        int read = 0;
+        while (read < length) {
+            if (read == body.length) body = Arrays.copyOf(body, (int) Math.min(length, 2L * body.length));
+            final int chunk = Math.min(body.length - read, BODY_CHUNK_LENGTH);
+            data.readFully(body, read, chunk);
+            read += chunk;
+        }
+        return ByteBuffer.wrap(body);
+    }
+
+    /**
+     * Reads the message at the buffer's position, advancing it past the message
+     * @param in source, heap or direct
+     * @return dynamic wrapping the decoded value
+     */
+    public static Dynamic read(ByteBuffer in) {
+        final ByteBuffer view = in.duplicate();
+        final Decoder headerDecoder = new Decoder(view, false);
+        headerDecoder.readHeader();
+        final int length = headerDecoder.readVarint();
+        if (length < 0) throw new IllegalArgumentException("Malformed DynamicCodec message length");
+        if (length > view.remaining()) throw new IllegalArgumentException("Truncated DynamicCodec message");
+        final int end = view.position() + length;
+        // limits & positions are set through Buffer, the covariant ByteBuffer overrides were added in Java 9
+        ((Buffer) view).limit(end);
+
+        final Object value = new Decoder(view, headerDecoder.deduplicated).readValue();
+        ((Buffer) in).position(end);
+        return Dynamic.from(value);
+    }
+
+    /** Writes values into a growable array */
+    private static class Encoder {
+
+        private byte[] bytes = new byte[256];
+        private int start;
+        private int size;
+        private final Map<String, Integer> keys = new HashMap<>();
+        /** written containers by id, or null when not deduplicating */
+        private final Map<Object, Integer> subtrees;
+        private int nextSubtreeId;
+
+        Encoder(boolean deduplicate) {
+            this.subtrees = deduplicate ? new HashMap<>() : null;
+        }
+
+        void ensure(int length) {
+            if (size + length > bytes.length) {
+                final long grown = Math.max((long) bytes.length * 2, (long) size + length);
+                if (grown > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("DynamicCodec messages are limited to 2GB");
+                bytes = Arrays.copyOf(bytes, (int) grown);
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeBytes(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigzag(long value) {
+            writeVarlong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int length) {
+            ensure(length);
+            for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        /** Writes varint length prefixed utf8, encoding ASCII strings directly */
+        void writeString(String string) {
+            final int length = string.length();
+            for (int i = 0; i < length; i++) {
+                if (string.charAt(i) >= 0x80) {
+                    final byte[] utf8 = string.getBytes(UTF_8);
+                    writeVarint(utf8.length);
+                    writeBytes(utf8, 0, utf8.length);
+                    return;
+                }
+            }
+            writeVarint(length);
+            ensure(length);
+            for (int i = 0; i < length; i++) bytes[size++] = (byte) string.charAt(i);
+        }
+
+        void writeKey(String key) {
+            final Integer id = keys.get(key);
+            if (id != null) {
+                writeByte(KEY_REF);
+                writeVarint(id);
+            }
+            else {
+                keys.put(key, keys.size());
+                writeByte(KEY);
+                writeString(key);
+            }
+        }
+
+        void writeBigInteger(BigInteger value) {
+            final byte[] twosComplement = value.toByteArray();
+            writeVarint(twosComplement.length);
+            writeBytes(twosComplement, 0, twosComplement.length);
+        }
+
+        void writeValue(Object value) {
+            if (value instanceof Dynamic) {
+                final Dynamic dynamic = (Dynamic) value;
+                value = dynamic.isPresent() ? dynamic.asObject() : null;
+            }
+
+            if (value == null) writeByte(NULL);
+            else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            }
+            else if (value instanceof Boolean) writeByte((Boolean) value ? TRUE : FALSE);
+            else if (value instanceof Integer) {
+                writeByte(INT);
+                writeZigzag((Integer) value);
+            }
+            else if (value instanceof Long) {
+                writeByte(LONG);
+                writeZigzag((Long) value);
+            }
+            else if (value instanceof Double) {
+                final double d = (Double) value;
+                final long integral = (long) d;
+                if (integral == d && integral > -(1L << 48) && integral < 1L << 48
+                    && (integral != 0 || 1 / d > 0)) {
+                    writeByte(INTEGRAL_DOUBLE);
+                    writeZigzag(integral);
+                }
+                else {
+                    writeByte(DOUBLE);
+                    writeFixed(Double.doubleToRawLongBits(d), 8);
+                }
+            }
+            else if (value instanceof Map || value instanceof Collection) writeContainer(value);
+            else writeOther(value);
+        }
+
+        private void writeContainer(Object container) {
+            int id = -1;
+            if (subtrees != null) {
+                final Integer written = subtrees.get(container);
+                if (written != null) {
+                    writeByte(SUBTREE_REF);
+                    writeVarint(written);
+                    return;
+                }
+                id = nextSubtreeId++;
+            }
+
+            if (container instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) container;
+                writeByte(MAP);
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (entry.getKey() instanceof String) writeKey((String) entry.getKey());
+                    else writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+            else {
+                final Collection<?> collection = (Collection<?>) container;
+                writeByte(collection instanceof List ? LIST : collection instanceof Set ? SET : COLLECTION);
+                writeVarint(collection.size());
+                for (Object element : collection) writeValue(element);
+            }
+
+            if (subtrees != null) subtrees.putIfAbsent(container, id);
+        }
+
+        private void writeOther(Object value) {
+            if (value instanceof Short) {
+                writeByte(SHORT);
+                writeZigzag((Short) value);
+            }
+            else if (value instanceof Byte) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            }
+            else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeFixed(Float.floatToRawIntBits((Float) value), 4);
+            }
+            else if (value instanceof BigInteger) {
+                writeByte(BIG_INTEGER);
+                writeBigInteger((BigInteger) value);
+            }
+            else if (value instanceof BigDecimal) {
+                writeByte(BIG_DECIMAL);
+                writeZigzag(((BigDecimal) value).scale());
+                writeBigInteger(((BigDecimal) value).unscaledValue());
+            }
+            else if (value instanceof Character) {
+                writeByte(CHARACTER);
+                writeVarint((Character) value);
+            }
+            else if (value instanceof UUID) {
+                writeByte(UUID_VALUE);
+                writeFixed(((UUID) value).getMostSignificantBits(), 8);
+                writeFixed(((UUID) value).getLeastSignificantBits(), 8);
+            }
+            else if (value.getClass() == Date.class) {
+                writeByte(DATE);
+                writeZigzag(((Date) value).getTime());
+            }
+            else if (value instanceof Instant) {
+                writeByte(INSTANT);
+                writeZigzag(((Instant) value).getEpochSecond());
+                writeVarint(((Instant) value).getNano());
+            }
+            else if (value instanceof LocalDate) {
+                writeByte(LOCAL_DATE);
+                writeZigzag(((LocalDate) value).toEpochDay());
+            }
+            else if (value instanceof LocalDateTime) {
+                writeByte(LOCAL_DATE_TIME);
+                writeString(value.toString());
+            }
+            else if (value instanceof ZonedDateTime) {
+                writeByte(ZONED_DATE_TIME);
+                writeString(value.toString());
+            }
+            else if (value instanceof OffsetDateTime) {
+                writeByte(OFFSET_DATE_TIME);
+                writeString(value.toString());
+            }
+            else if (value instanceof Optional) {
+                writeByte(OPTIONAL);
+                writeValue(((Optional<?>) value).orElse(null));
+            }
+            else throw new IllegalArgumentException("Cannot encode " + value.getClass().getName() + " value");
+        }
+    }
+
+    /** Reads values from a buffer's position */
+    private static class Decoder {
+
+        private final ByteBuffer in;
+        private final List<String> keys = new ArrayList<>();
+        /** decoded containers by id, or null when not deduplicated */
+        private List<Object> subtrees;
+        boolean deduplicated;
+
+        Decoder(ByteBuffer in, boolean deduplicated) {
+            this.in = in;
+            this.deduplicated = deduplicated;
+            if (deduplicated) subtrees = new ArrayList<>();
+        }
+
+        private IllegalArgumentException malformed(String issue) {
+            return new IllegalArgumentException("Malformed DynamicCodec message, " + issue + " at " + in.position());
+        }
+
+        private byte readByte() {
+            if (!in.hasRemaining()) throw malformed("unexpected end");
+            return in.get();
+        }
+
+        void readHeader() {
+            for (byte magic : MAGIC) {
+                if (readByte() != magic) throw new IllegalArgumentException("Not a DynamicCodec message");
+            }
+            final byte version = readByte();
+            if (version != VERSION) throw new IllegalArgumentException("Unsupported DynamicCodec version " + version);
+            deduplicated = (readByte() & DEDUPLICATED_FLAG) != 0;
+        }
+
+        int readVarint() {
+            final long value = readVarlong();
+            if (value > 0xFFFFFFFFL) throw malformed("varint overflow");
+            return (int) value;
+        }
+
+        private int readLength() {
+            final int length = readVarint();
+            if (length < 0 || length > in.remaining()) throw malformed("length " + (length & 0xFFFFFFFFL) + " overruns");
+            return length;
+        }
+
+        private long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw malformed("varint overflow");
+        }
+
+        private long readZigzag() {
+            final long value = readVarlong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readFixed(int length) {
+            if (in.remaining() < length) throw malformed("unexpected end");
+            long value = 0;
+            for (int i = 0; i < length; i++) value = (value << 8) | (in.get() & 0xFF);
+            return value;
+        }
+
+        private byte[] readBytes() {
+            final byte[] bytes = new byte[readLength()];
+            in.get(bytes);
+            return bytes;
+        }
+
+        private String readString() {
+            final int length = readLength();
+            final String string;
+            if (in.hasArray()) string = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+            else {
+                final byte[] copy = new byte[length];
+                in.duplicate().get(copy);
+                string = new String(copy, UTF_8);
+            }
+            ((Buffer) in).position(in.position() + length);
+            return string;
+        }
+
+        private BigInteger readBigInteger() {
+            return new BigInteger(readBytes());
+        }
+
+        private <T> T register(T container) {
+            if (subtrees != null) subtrees.add(container);
+            return container;
+        }
+
+        Object readValue() {
+            final byte tag = readByte();
+            switch (tag) {
+                case NULL: return null;
+                case TRUE: return Boolean.TRUE;
+                case FALSE: return Boolean.FALSE;
+                case INT: return (int) readZigzag();
+                case LONG: return readZigzag();
+                case SHORT: return (short) readZigzag();
+                case BYTE: return readByte();
+                case DOUBLE: return Double.longBitsToDouble(readFixed(8));
+                case INTEGRAL_DOUBLE: return (double) readZigzag();
+                case FLOAT: return Float.intBitsToFloat((int) readFixed(4));
+                case BIG_INTEGER: return readBigInteger();
+                case BIG_DECIMAL:
+                    final int scale = (int) readZigzag();
+                    return new BigDecimal(readBigInteger(), scale);
+                case CHARACTER: return (char) readVarint();
+                case STRING: return readString();
+                case KEY:
+                    final String key = readString();
+                    keys.add(key);
+                    return key;
+                case KEY_REF:
+                    final int keyId = readVarint();
+                    if (keyId >= keys.size()) throw malformed("unknown key " + keyId);
+                    return keys.get(keyId);
+                case MAP:
+                    final int entries = readLength();
+                    final Map<Object, Object> map = register(new LinkedHashMap<>(entries * 4 / 3 + 1));
+                    for (int i = 0; i < entries; i++) map.put(readValue(), readValue());
+                    return map;
+                case LIST: return readElements(register(new ArrayList<>()));
+                case SET: return readElements(register(new LinkedHashSet<>()));
+                case COLLECTION: return readElements(register(new ArrayDeque<>()));
+                case SUBTREE_REF:
+                    final int subtreeId = readVarint();
+                    if (subtrees == null || subtreeId >= subtrees.size()) throw malformed("unknown subtree " + subtreeId);
+                    return subtrees.get(subtreeId);
+                case UUID_VALUE: return new UUID(readFixed(8), readFixed(8));
+                case DATE: return new Date(readZigzag());
+                case INSTANT:
+                    final long seconds = readZigzag();
+                    return Instant.ofEpochSecond(seconds, readVarint());
+                case LOCAL_DATE: return LocalDate.ofEpochDay(readZigzag());
+                case LOCAL_DATE_TIME: return LocalDateTime.parse(readString());
+                case ZONED_DATE_TIME: return ZonedDateTime.parse(readString());
+                case OFFSET_DATE_TIME: return OffsetDateTime.parse(readString());
+                case OPTIONAL: return Optional.ofNullable(readValue());
+                default: throw malformed("unknown tag " + tag);
+            }
+        }
+
+        private <C extends Collection<Object>> C readElements(C collection) {
+            final int count = readLength();
+            for (int i = 0; i < count; i++) collection.add(readValue());
+            return collection;
+        }
+    }
+
+    private DynamicCodec() {/* static */}
+}
@@ -1,7 +1,5 @@
 package alexh.weak;
 
-import static alexh.weak.DynamicChildLogic.using;
-import alexh.LiteJoiner;
 import java.util.Collection;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -25,16 +23,31 @@ class DynamicCollection extends AbstractDynamic<Collection> implements Dynamic,
 
     @Override
     public Dynamic get(Object childKey) {
-        if (inner.isEmpty()) return new ParentAbsence.Empty<>(this, childKey);
+        return Metrics.lookup(find(childKey));
+    }
+
+    private Dynamic find(Object childKey) {
+        if (!hasChildren()) return new ParentAbsence.Empty<>(this, childKey);
         return new ChildAbsence.Missing<>(this, childKey);
     }
 
+    @Override
+    public Dynamic getOrNull(Object childKey) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(childKey));
+        return null;
+    }
+
     @Override
     public Stream<Dynamic> children() {
         return ((Collection<?>) inner).stream()
             .map(val -> val == null ? new ChildAbsence.Null(this, NO_KEY) : DynamicChild.from(this, NO_KEY, val));
     }
 
+    @Override
+    public boolean hasChildren() {
+        return !inner.isEmpty();
+    }
+
     @Override
     public String describe() {
         final String type = inner instanceof Set ? "Set" : "Collection";
@@ -51,6 +64,7 @@ class DynamicCollection extends AbstractDynamic<Collection> implements Dynamic,
 
         private final Dynamic parent;
         private final Object key;
+        private DynamicPath path;
 
         Child(Dynamic parent, Object key, Collection inner) {
             super(inner);
@@ -63,6 +77,11 @@ class DynamicCollection extends AbstractDynamic<Collection> implements Dynamic,
             return parent;
         }
 
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
         @Override
         public Object keyLiteral() {
             return key;
@@ -70,8 +89,7 @@ class DynamicCollection extends AbstractDynamic<Collection> implements Dynamic,
 
         @Override
         public String toString() {
-            return LiteJoiner.on(ARROW).join(using(this).getAscendingKeyChainWithRoot()) + ":" +
-                describe();
+            return path() + ":" + describe();
         }
     }
 }
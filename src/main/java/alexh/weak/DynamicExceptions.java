@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Library-wide setting for the {@link NoSuchElementException}s thrown reading absent Dynamic values &
+ * the {@link ClassCastException}s thrown by miscast {@link Dynamic#as(Class)} calls.
+ * <p>
+ * By default these are standard exceptions with a stack trace & a message describing the key path. When stackless
+ * they have no stack trace & their message is only formatted if read, so code using them for control flow, ie
+ * {@code try { return dy.dget(path).asString(); } catch (NoSuchElementException ex) { ... }}, doesn't pay for either.
+ * Messages are identical in both modes, but stackless exceptions reference the Dynamic they describe until read.
+ * <p>
+ * Stackless exceptions can be enabled with {@link #setStackless(boolean)} or the system property
+ * {@code -Dalexh.weak.stackless=true}
+ *
+ * @author Alex Butler
+ */
+public final class DynamicExceptions {
+
+    private static volatile boolean stackless = Boolean.getBoolean("alexh.weak.stackless");
+
+    /**
+     * Sets whether absence & miscast exceptions are stackless with lazily formatted messages
+     * @param stackless true for stackless exceptions, false for standard exceptions
+     */
+    public static void setStackless(boolean stackless) {
+        DynamicExceptions.stackless = stackless;
+    }
+
+    /** @return absence & miscast exceptions are stackless with lazily formatted messages */
+    public static boolean isStackless() {
+        return stackless;
+    }
+
+    static NoSuchElementException noSuchElement(Supplier<String> message) {
+        return stackless ? new StacklessNoSuchElementException(message) : new NoSuchElementException(message.get());
+    }
+
+    static ClassCastException classCast(Supplier<String> message) {
+        return stackless ? new StacklessClassCastException(message) : new ClassCastException(message.get());
+    }
+
+    /** @return message of the ClassCastException {@link Class#cast(Object)} throws for the input */
+    static String castMessage(Object value, Class<?> type) {
+        return "Cannot cast " + value.getClass().getName() + " to " + type.getName();
+    }
+
+    private DynamicExceptions() {}
+
+    private static class StacklessNoSuchElementException extends NoSuchElementException {
+
+        private transient Supplier<String> supplier;
+        private String message;
+
+        StacklessNoSuchElementException(Supplier<String> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public synchronized String getMessage() {
+            if (supplier != null) {
+                message = supplier.get();
+                supplier = null;
+            }
+            return message;
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static class StacklessClassCastException extends ClassCastException {
+
+        private transient Supplier<String> supplier;
+        private String message;
+
+        StacklessClassCastException(Supplier<String> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public synchronized String getMessage() {
+            if (supplier != null) {
+                message = supplier.get();
+                supplier = null;
+            }
+            return message;
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -15,9 +15,7 @@
  */
 package alexh.weak;
 
-import static alexh.weak.DynamicChildLogic.using;
 import static java.lang.String.format;
-import alexh.LiteJoiner;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
@@ -29,13 +27,30 @@ class DynamicList extends AbstractDynamic<List> implements Dynamic, Describer {
         super(inner);
     }
 
+    /** @return key as an index, converting non-Integers, or null */
+    static Integer index(Object key) {
+        if (key instanceof Integer) return (Integer) key;
+        if (key instanceof String) {
+            // plain digit strings, as from dget paths, are parsed directly
+            final String string = (String) key;
+            boolean digits = !string.isEmpty() && string.length() <= 9;
+            for (int i = 0; digits && i < string.length(); i++) digits = string.charAt(i) >= '0' && string.charAt(i) <= '9';
+            if (digits) return Integer.parseInt(string);
+        }
+        return Optional.ofNullable(key)
+            .flatMap(k -> Converter.convert(k).maybe().intoInteger())
+            .orElse(null);
+    }
+
     @Override
     public Dynamic get(Object key) {
-        if (inner.isEmpty()) return new ParentAbsence.Empty<>(this, key);
+        return Metrics.lookup(find(key));
+    }
 
-        Integer index = Optional.ofNullable(key)
-            .flatMap(k -> Converter.convert(k).maybe().intoInteger())
-            .orElse(null);
+    private Dynamic find(Object key) {
+        if (!hasChildren()) return new ParentAbsence.Empty<>(this, key);
+
+        Integer index = index(key);
         if (index == null) return new ChildAbsence.Missing<>(this, key);
 
         if (index < 0 || index >= inner.size()) return new ChildAbsence.Missing<>(this, index);
@@ -44,11 +59,26 @@ class DynamicList extends AbstractDynamic<List> implements Dynamic, Describer {
         return val != null ? DynamicChild.from(this, index, val) : new ChildAbsence.Null(this, index);
     }
 
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        final Integer index = index(key);
+        if (index == null || index < 0 || index >= inner.size()) return null;
+
+        final Object val = inner.get(index);
+        return val != null ? DynamicChild.from(this, index, val) : null;
+    }
+
     @Override
     public Stream<Dynamic> children() {
         return IntStream.range(0, inner.size()).mapToObj(this::get);
     }
 
+    @Override
+    public boolean hasChildren() {
+        return !inner.isEmpty();
+    }
+
     @Override
     public String describe() {
         final String type = "List";
@@ -74,6 +104,7 @@ class DynamicList extends AbstractDynamic<List> implements Dynamic, Describer {
 
         private final Dynamic parent;
         private final Object key;
+        private DynamicPath path;
 
         Child(Dynamic parent, Object key, List inner) {
             super(inner);
@@ -86,6 +117,11 @@ class DynamicList extends AbstractDynamic<List> implements Dynamic, Describer {
             return parent;
         }
 
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
         @Override
         public Object keyLiteral() {
             return key;
@@ -93,7 +129,7 @@ class DynamicList extends AbstractDynamic<List> implements Dynamic, Describer {
 
         @Override
         public String toString() {
-            return LiteJoiner.on(ARROW).join(using(this).getAscendingKeyChainWithRoot()) + ":" + describe();
+            return path() + ":" + describe();
         }
     }
 }
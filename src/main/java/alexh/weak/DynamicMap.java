@@ -15,39 +15,70 @@
  */
 package alexh.weak;
 
-import static alexh.weak.DynamicChildLogic.using;
-import alexh.LiteJoiner;
 import java.util.Map;
 import java.util.stream.Stream;
 
 class DynamicMap extends AbstractDynamic<Map<?, ?>> implements Dynamic, Describer {
 
+    /** marks a key as not found, as maps may have null keys */
+    private static final Object NO_KEY = new Object();
+
+    /** toString key index of large maps, immutable so racy caching is safe */
+    private MapKeyIndex keyIndex;
+
     public DynamicMap(Map<?, ?> inner) {
         super(inner);
     }
 
+    /**
+     * @return key of the inner map matching the child key, the key itself, else for String child keys the first key
+     * with that toString, else the child key's toString. Or {@link #NO_KEY}
+     */
+    private Object innerKey(Object childKey) {
+        if (inner.containsKey(childKey)) return childKey;
+        if (childKey instanceof String) {
+            final Object key = keyOf((String) childKey);
+            if (key != null) return key;
+        }
+        final String keyString = childKey.toString();
+        return inner.containsKey(keyString) ? keyString : NO_KEY;
+    }
+
+    /** @return first key of the inner map with the input toString value, or null */
+    private Object keyOf(String keyString) {
+        final MapKeyIndex index = keyIndex = MapKeyIndex.of(inner, keyIndex);
+        return index != null ? index.keyOf(inner, keyString) : MapKeyIndex.scan(inner, keyString);
+    }
+
+    /** @return key reported for the child, String child keys are reported as requested */
+    private static Object reportedKey(Object childKey, Object innerKey) {
+        return childKey instanceof String || innerKey == childKey ? childKey : innerKey;
+    }
+
     @Override
     public Dynamic get(Object childKey) {
-        if (inner.isEmpty()) return new ParentAbsence.Empty<>(this, childKey);
-        if (!inner.containsKey(childKey)) {
-            if (childKey instanceof String) {
-                for (Map.Entry<?, ?> entry : inner.entrySet()) {
-                    if (childKey.equals(entry.getKey().toString()))
-                        return entry.getValue() != null ? DynamicChild.from(this, childKey, entry.getValue()) :
-                            new ChildAbsence.Null(this, childKey);
-                }
-            }
-
-            final String keyString = childKey.toString();
-            if (inner.containsKey(keyString)) {
-                final Object val = inner.get(keyString);
-                return val != null ? DynamicChild.from(this, keyString, val) : new ChildAbsence.Null(this, keyString);
-            }
-
-            return new ChildAbsence.Missing<>(this, childKey);
-        }
-        final Object val = inner.get(childKey);
-        return val != null ? DynamicChild.from(this, childKey, val) : new ChildAbsence.Null(this, childKey);
+        return Metrics.lookup(find(childKey));
+    }
+
+    private Dynamic find(Object childKey) {
+        if (!hasChildren()) return new ParentAbsence.Empty<>(this, childKey);
+        final Object innerKey = innerKey(childKey);
+        if (innerKey == NO_KEY) return new ChildAbsence.Missing<>(this, childKey);
+
+        final Object key = reportedKey(childKey, innerKey);
+        final Object val = inner.get(innerKey);
+        return val != null ? DynamicChild.from(this, key, val) : new ChildAbsence.Null(this, key);
+    }
+
+    @Override
+    public Dynamic getOrNull(Object childKey) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(childKey));
+        if (!hasChildren()) return null;
+        final Object innerKey = innerKey(childKey);
+        if (innerKey == NO_KEY) return null;
+
+        final Object val = inner.get(innerKey);
+        return val != null ? DynamicChild.from(this, reportedKey(childKey, innerKey), val) : null;
     }
 
     @Override
@@ -55,6 +86,11 @@ class DynamicMap extends AbstractDynamic<Map<?, ?>> implements Dynamic, Describe
         return inner.keySet().stream().map(this::get);
     }
 
+    @Override
+    public boolean hasChildren() {
+        return !inner.isEmpty();
+    }
+
     @Override
     public String describe() {
         if (inner.isEmpty()) return "Empty-Map";
@@ -75,6 +111,7 @@ class DynamicMap extends AbstractDynamic<Map<?, ?>> implements Dynamic, Describe
 
         private final Dynamic parent;
         private final Object key;
+        private DynamicPath path;
 
         Child(Dynamic parent, Object key, Map inner) {
             super(inner);
@@ -87,6 +124,11 @@ class DynamicMap extends AbstractDynamic<Map<?, ?>> implements Dynamic, Describe
             return parent;
         }
 
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
         @Override
         public Object keyLiteral() {
             return key;
@@ -94,7 +136,7 @@ class DynamicMap extends AbstractDynamic<Map<?, ?>> implements Dynamic, Describe
 
         @Override
         public String toString() {
-            return LiteJoiner.on(ARROW).join(using(this).getAscendingKeyChainWithRoot()) + ":" + describe();
+            return path() + ":" + describe();
         }
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Instrumentation hook for Dynamic lookups, conversions, date parsing & xml parsing. A single instance may be
+ * registered globally, by default none is & instrumented code only checks that none is registered.
+ * <pre>{@code
+ *     InMemoryDynamicMetrics metrics = new InMemoryDynamicMetrics();
+ *     DynamicMetrics.register(metrics);
+ *     ...
+ *     log.info("dynamic metrics: {}", metrics.snapshot());
+ * }</pre>
+ * Key paths, ie {@code dget("a.b.c")} or xml {@code get("a|b|c")}, record a lookup per key resolved.
+ * Implementations are called on the thread doing the work, so must be thread-safe & cheap.
+ * See {@link InMemoryDynamicMetrics} for a counting implementation
+ *
+ * @author Alex Butler
+ */
+public interface DynamicMetrics {
+
+    /**
+     * Registers the instance to record all Dynamic operations, replacing any registered instance
+     * @param metrics instance to record to
+     */
+    static void register(DynamicMetrics metrics) {
+        Metrics.current = requireNonNull(metrics);
+    }
+
+    /** Stops recording Dynamic operations */
+    static void unregister() {
+        Metrics.current = null;
+    }
+
+    /**
+     * Called after a {@link Dynamic#get(Object)} finds a child. While registered {@link Dynamic#getOrNull(Object)}
+     * records as get, so hits are counted alike whichever is used. Use {@link Dynamic#path()} to record by path
+     * @param child present child
+     */
+    default void hit(Dynamic child) {}
+
+    /**
+     * Called after a {@link Dynamic#get(Object)} finds no child, including gets from absences. While registered
+     * {@link Dynamic#getOrNull(Object)} misses get the absence to pass here, though {@link Dynamic#dgetOrNull(String)}
+     * & {@link Dynamic#has(String)} stop at the first miss where {@link Dynamic#dget(String)} continues from absences
+     * @param absence absent child, ie a {@link ChildAbsence.Missing} or {@link ParentAbsence.Barren}
+     */
+    default void miss(Dynamic absence) {}
+
+    /**
+     * Called after a conversion is attempted by {@link ConverterMaybe} or a {@link Converter} {@code into*Works()}
+     * method, conversions calling {@link Converter} directly are not recorded as failures are thrown to the caller
+     * @param type conversion target type
+     * @param converted conversion succeeded
+     */
+    default void conversion(Class<?> type, boolean converted) {}
+
+    /**
+     * Called after each parser is attempted by a {@link ConverterTimeFormats#orderedParseAttempter} parser
+     * @param parser parser name, ie {@code "ISO_PERMISSIVE"} for the {@link ConverterTimeFormats} parsers
+     * @param parsed parser succeeded
+     */
+    default void timeParse(String parser, boolean parsed) {}
+
+    /**
+     * Called after an {@link XmlDynamic} parses xml
+     * @param nanos parse duration in nanoseconds
+     */
+    default void xmlParse(long nanos) {}
+}
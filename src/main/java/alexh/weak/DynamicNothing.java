@@ -15,7 +15,6 @@
  */
 package alexh.weak;
 
-import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
 enum DynamicNothing implements Dynamic, Describer {
@@ -23,7 +22,13 @@ enum DynamicNothing implements Dynamic, Describer {
 
     @Override
     public Dynamic get(Object key) {
-        return new ParentAbsence.Barren<>(this, key);
+        return Metrics.lookup(new ParentAbsence.Barren<>(this, key));
+    }
+
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        return null;
     }
 
     @Override
@@ -33,7 +38,7 @@ enum DynamicNothing implements Dynamic, Describer {
 
     @Override
     public Object asObject() {
-        throw new NoSuchElementException("null 'root' premature end of path *root*");
+        throw DynamicExceptions.noSuchElement(() -> "null 'root' premature end of path *root*");
     }
 
     @Override
@@ -41,6 +46,11 @@ enum DynamicNothing implements Dynamic, Describer {
         return Stream.empty();
     }
 
+    @Override
+    public boolean hasChildren() {
+        return false;
+    }
+
     @Override
     public Dynamic key() {
         return DynamicChild.key(this, ROOT_KEY);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.weak.DynamicChild.ARROW;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable key path of a Dynamic from its root, see {@link Dynamic#path()}. Paths are persistent, each child's path
+ * is a single node sharing its parent's path, so paths are cheap to create & deep paths render in a single pass
+ * <pre>{@code
+ *     Dynamic.from(message).dget("product.investment").path().toString(); // "root->product->investment"
+ * }</pre>
+ *
+ * @author Alex Butler
+ */
+public final class DynamicPath {
+
+    private static final DynamicPath ROOT = new DynamicPath(null, Dynamic.ROOT_KEY);
+
+    static DynamicPath root(Object key) {
+        return Dynamic.ROOT_KEY.equals(key) ? ROOT : new DynamicPath(null, key);
+    }
+
+    private final DynamicPath parent;
+    private final Object key;
+    private final int depth;
+
+    private DynamicPath(DynamicPath parent, Object key) {
+        this.parent = parent;
+        this.key = key;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    DynamicPath child(Object key) {
+        return new DynamicPath(this, key);
+    }
+
+    /**
+     * Path of a child wrapper, for wrappers caching their path in a plain field, ie
+     * {@code return path = DynamicPath.cached(path, parent, key);}. The caching is racy but benign, paths are
+     * immutable with final fields so other threads read either null or a complete path, at worst building an equal
+     * path themselves
+     * @param cached path previously returned for the child, or null
+     * @param parent child's parent
+     * @param key child's key
+     * @return cached path, or the child path of the parent's path
+     */
+    static DynamicPath cached(DynamicPath cached, Dynamic parent, Object key) {
+        return cached != null ? cached : parent.path().child(key);
+    }
+
+    /** @return path of the parent, or null if this is a root path */
+    public DynamicPath parent() {
+        return parent;
+    }
+
+    /** @return last key of this path, for root paths this is the root key, ie {@link Dynamic#ROOT_KEY} */
+    public Object key() {
+        return key;
+    }
+
+    /** @return number of keys after the root key, so 0 for root paths */
+    public int depth() {
+        return depth;
+    }
+
+    /** @return all keys of this path from the root key, inclusive */
+    public List<Object> keys() {
+        final Object[] keys = new Object[depth + 1];
+        DynamicPath path = this;
+        for (int i = depth; i >= 0; i--, path = path.parent) keys[i] = path.key;
+        return Arrays.asList(keys);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DynamicPath other = (DynamicPath) o;
+        DynamicPath path = this;
+        if (depth != other.depth) return false;
+        while (path != null) {
+            if (path == other) return true;
+            if (!Objects.equals(path.key, other.key)) return false;
+            path = path.parent;
+            other = other.parent;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (Object key : keys()) hash = 31 * hash + Objects.hashCode(key);
+        return hash;
+    }
+
+    /** @return keys joined by {@code ->}, ie {@code root->product->investment} */
+    @Override
+    public String toString() {
+        final String[] keys = new String[depth + 1];
+        int length = depth * ARROW.length();
+        DynamicPath path = this;
+        for (int i = depth; i >= 0; i--, path = path.parent) {
+            keys[i] = String.valueOf(path.key);
+            length += keys[i].length();
+        }
+        final StringBuilder rendered = new StringBuilder(length).append(keys[0]);
+        for (int i = 1; i < keys.length; i++) rendered.append(ARROW).append(keys[i]);
+        return rendered.toString();
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.unchecked;
+import static alexh.Unchecker.uncheckedGet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary snapshots of Dynamic trees, read in place from a memory-mapped file. Opening a snapshot reads no values,
+ * {@code get} & {@code children} navigate the mapped bytes directly, so startup is near-instant, the data lives
+ * off-heap in the page cache & is shared between processes mapping the same file.
+ * <pre>{@code
+ *     DynamicSnapshot.write(referenceData, snapshotFile); // once
+ *     ...
+ *     Dynamic reference = DynamicSnapshot.open(snapshotFile); // on each start
+ *     reference.get("products").get("some-id").get("name").asString();
+ * }</pre>
+ * Snapshots hold maps, lists & collections (as lists), strings, booleans & numbers. Integers, Longs & Doubles keep
+ * their types, Shorts & Bytes are stored as Integers, Floats as Doubles & other numbers as BigDecimals.
+ * Map keys are stored as Strings and other values by their {@link Object#toString()}. Snapshots are limited to 2GB.
+ * <p>
+ * Format, big-endian, offsets are absolute {@code int}s:
+ * <pre>
+ *     header:     "DYNS" version:byte
+ *     dictionary: count:int keyOffset:int[count] (length:int utf8:byte[length])[count], sorted by utf8 bytes
+ *     values:     tag:byte ...
+ *                   MAP     count:int (keyId:int valueOffset:int)[count] entryIndexSortedByKeyId:int[count]
+ *                   LIST    count:int valueOffset:int[count]
+ *                   STRING  length:int utf8:byte[length]
+ *                   DECIMAL length:int ascii:byte[length]
+ *                   INT int | LONG long | DOUBLE double | TRUE | FALSE
+ *     trailer:    rootOffset:int "DYNS"
+ * </pre>
+ * null values have the offset -1. Values are written children first, so the root is last.
+ *
+ * @author Alex Butler
+ */
+public class DynamicSnapshot {
+
+    static final byte[] MAGIC = {'D', 'Y', 'N', 'S'};
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + 1;
+    static final int TRAILER_LENGTH = 4 + MAGIC.length;
+
+    static final byte MAP = 1;
+    static final byte LIST = 2;
+    static final byte STRING = 3;
+    static final byte DECIMAL = 4;
+    static final byte INT = 5;
+    static final byte LONG = 6;
+    static final byte DOUBLE = 7;
+    static final byte TRUE = 8;
+    static final byte FALSE = 9;
+
+    static final int NULL_OFFSET = -1;
+
+    /**
+     * Writes a snapshot file of the input's value
+     * @param dynamic tree to snapshot
+     * @param file destination, replaced if it exists
+     */
+    public static void write(Dynamic dynamic, Path file) {
+        unchecked(() -> {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                write(dynamic, out);
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot of the input's value
+     * @param dynamic tree to snapshot
+     * @param out destination, flushed but not closed
+     */
+    public static void write(Dynamic dynamic, OutputStream out) {
+        final Object value = dynamic.isPresent() ? dynamic.asObject() : null;
+        unchecked(() -> new Writer(value, out).write());
+    }
+
+    /**
+     * Maps a snapshot file read-only, reading nothing until used
+     * @param file snapshot file written by {@link #write(Dynamic, Path)}, which must not be modified while in use
+     * @return dynamic reading the snapshot
+     */
+    public static Dynamic open(Path file) {
+        return open(uncheckedGet(() -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }));
+    }
+
+    /**
+     * Reads a snapshot in place
+     * @param snapshot snapshot bytes from position 0, heap or direct, which must not be modified while in use
+     * @return dynamic reading the snapshot
+     */
+    public static Dynamic open(ByteBuffer snapshot) {
+        final ByteBuffer bytes = snapshot.duplicate();
+        final int limit = bytes.limit();
+        if (limit < HEADER_LENGTH + TRAILER_LENGTH || !hasMagic(bytes, 0) || !hasMagic(bytes, limit - MAGIC.length))
+            throw new IllegalArgumentException("Not a Dynamic snapshot");
+        if (bytes.get(MAGIC.length) != VERSION)
+            throw new IllegalArgumentException("Unsupported Dynamic snapshot version " + bytes.get(MAGIC.length));
+
+        final int root = bytes.getInt(limit - TRAILER_LENGTH);
+        if (root == NULL_OFFSET) return Dynamic.from(null);
+        return new SnapshotDynamic(bytes, root);
+    }
+
+    private static boolean hasMagic(ByteBuffer bytes, int offset) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes.get(offset + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /** Unsigned lexicographic comparison of UTF-8 bytes, the dictionary order */
+    static int compareUtf8(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            final int compared = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (compared != 0) return compared;
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /** Writes children before parents, tracking the offset of each value written */
+    private static class Writer {
+
+        private final Object root;
+        private final DataOutputStream out;
+        private final Map<String, Integer> keyIds = new HashMap<>();
+
+        Writer(Object root, OutputStream out) {
+            this.root = root;
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        void write() throws IOException {
+            final TreeSet<byte[]> keys = new TreeSet<>(DynamicSnapshot::compareUtf8);
+            collectKeys(root, keys);
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+
+            out.writeInt(keys.size());
+            int keyOffset = HEADER_LENGTH + 4 + 4 * keys.size();
+            for (byte[] key : keys) {
+                out.writeInt(keyOffset);
+                keyOffset += 4 + key.length;
+            }
+            int id = 0;
+            for (byte[] key : keys) {
+                out.writeInt(key.length);
+                out.write(key);
+                keyIds.put(new String(key, UTF_8), id++);
+            }
+
+            final int rootOffset = writeValue(root);
+            out.writeInt(rootOffset);
+            out.write(MAGIC);
+            out.flush();
+            position();
+        }
+
+        /** @return current offset, DataOutputStream sizes saturate at Integer.MAX_VALUE */
+        private int position() {
+            final int position = out.size();
+            if (position == Integer.MAX_VALUE) throw new IllegalArgumentException("Dynamic snapshots are limited to 2GB");
+            return position;
+        }
+
+        private static Collection<?> asCollection(Object value) {
+            if (value instanceof Collection) return (Collection<?>) value;
+            if (value instanceof Object[]) return Arrays.asList((Object[]) value);
+            return null;
+        }
+
+        private void collectKeys(Object value, Set<byte[]> keys) {
+            if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    keys.add(String.valueOf(entry.getKey()).getBytes(UTF_8));
+                    collectKeys(entry.getValue(), keys);
+                }
+            }
+            else {
+                final Collection<?> collection = asCollection(value);
+                if (collection != null) for (Object element : collection) collectKeys(element, keys);
+            }
+        }
+
+        /** @return offset of the written value */
+        private int writeValue(Object value) throws IOException {
+            if (value == null) return NULL_OFFSET;
+            if (value instanceof Optional) return writeValue(((Optional<?>) value).orElse(null));
+            if (value instanceof Map) return writeMap((Map<?, ?>) value);
+
+            final Collection<?> collection = asCollection(value);
+            if (collection != null) return writeList(collection);
+
+            final int offset = position();
+            if (value instanceof Boolean) out.writeByte((Boolean) value ? TRUE : FALSE);
+            else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(INT);
+                out.writeInt(((Number) value).intValue());
+            }
+            else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            }
+            else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            }
+            else if (value instanceof BigDecimal || value instanceof BigInteger || value instanceof Number) {
+                out.writeByte(DECIMAL);
+                writeBytes(new BigDecimal(value.toString()).toString().getBytes(UTF_8));
+            }
+            else {
+                out.writeByte(STRING);
+                writeBytes(value.toString().getBytes(UTF_8));
+            }
+            return offset;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private int writeMap(Map<?, ?> map) throws IOException {
+            final int count = map.size();
+            final int[] keys = new int[count];
+            final int[] offsets = new int[count];
+            final Set<Integer> seen = new HashSet<>();
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                final String key = String.valueOf(entry.getKey());
+                keys[i] = keyIds.get(key);
+                if (!seen.add(keys[i]))
+                    throw new IllegalArgumentException("Map has multiple keys with string value '" + key + "'");
+                offsets[i++] = writeValue(entry.getValue());
+            }
+
+            final Integer[] sorted = new Integer[count];
+            for (i = 0; i < count; i++) sorted[i] = i;
+            Arrays.sort(sorted, Comparator.comparingInt(entry -> keys[entry]));
+
+            final int offset = position();
+            out.writeByte(MAP);
+            out.writeInt(count);
+            for (i = 0; i < count; i++) {
+                out.writeInt(keys[i]);
+                out.writeInt(offsets[i]);
+            }
+            for (Integer entry : sorted) out.writeInt(entry);
+            return offset;
+        }
+
+        private int writeList(Collection<?> list) throws IOException {
+            final int[] offsets = new int[list.size()];
+            int i = 0;
+            for (Object element : list) offsets[i++] = writeValue(element);
+
+            final int offset = position();
+            out.writeByte(LIST);
+            out.writeInt(offsets.length);
+            for (int elementOffset : offsets) out.writeInt(elementOffset);
+            return offset;
+        }
+    }
+
+    private DynamicSnapshot() {/* static */}
+}
@@ -15,8 +15,6 @@
  */
 package alexh.weak;
 
-import static alexh.weak.DynamicChildLogic.using;
-import alexh.LiteJoiner;
 import java.util.stream.Stream;
 
 class DynamicSomething extends AbstractDynamic<Object> implements Dynamic, Describer {
@@ -27,7 +25,13 @@ class DynamicSomething extends AbstractDynamic<Object> implements Dynamic, Descr
 
     @Override
     public Dynamic get(Object key) {
-        return new ParentAbsence.Barren<>(this, key);
+        return Metrics.lookup(new ParentAbsence.Barren<>(this, key));
+    }
+
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        return null;
     }
 
     @Override
@@ -50,10 +54,16 @@ class DynamicSomething extends AbstractDynamic<Object> implements Dynamic, Descr
         return Stream.empty();
     }
 
+    @Override
+    public boolean hasChildren() {
+        return false;
+    }
+
     static class Child extends DynamicSomething implements DynamicChild {
 
         private final Dynamic parent;
         private final Object key;
+        private DynamicPath path;
 
         Child(Dynamic parent, Object key, Object inner) {
             super(inner);
@@ -66,6 +76,11 @@ class DynamicSomething extends AbstractDynamic<Object> implements Dynamic, Descr
             return parent;
         }
 
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
         @Override
         public Object keyLiteral() {
             return key;
@@ -73,8 +88,7 @@ class DynamicSomething extends AbstractDynamic<Object> implements Dynamic, Descr
 
         @Override
         public String toString() {
-            return LiteJoiner.on(ARROW).join(using(this).getAscendingKeyChainWithRoot()) + ":" +
-                describe();
+            return path() + ":" + describe();
         }
     }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.util.Collections.unmodifiableMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DynamicMetrics} counting operations with striped {@link LongAdder}s, so recording threads rarely contend.
+ * Counts are read with {@link #snapshot()}
+ * <pre>{@code
+ *     InMemoryDynamicMetrics metrics = new InMemoryDynamicMetrics();
+ *     DynamicMetrics.register(metrics);
+ *     ...
+ *     metrics.snapshot().misses(); // {Missing=12, Null=3}
+ * }</pre>
+ * Misses are counted by absence type: {@code Missing}, {@code Null}, {@code Empty}, {@code Barren} or
+ * {@code AbsentParent} for gets from absences. Conversions are counted by target type simple name,
+ * time parses by parser name
+ *
+ * @author Alex Butler
+ */
+public class InMemoryDynamicMetrics implements DynamicMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> misses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> conversions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> conversionFailures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> timeParses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> timeParseFailures = new ConcurrentHashMap<>();
+    private final LongAdder xmlParses = new LongAdder();
+    private final LongAdder xmlParseNanos = new LongAdder();
+
+    private static void increment(ConcurrentHashMap<String, LongAdder> counts, String key) {
+        LongAdder count = counts.get(key);
+        if (count == null) count = counts.computeIfAbsent(key, k -> new LongAdder());
+        count.increment();
+    }
+
+    private static Map<String, Long> sum(ConcurrentHashMap<String, LongAdder> counts) {
+        final Map<String, Long> sums = new TreeMap<>();
+        counts.forEach((key, count) -> sums.put(key, count.sum()));
+        return unmodifiableMap(sums);
+    }
+
+    @Override
+    public void hit(Dynamic child) {
+        hits.increment();
+    }
+
+    @Override
+    public void miss(Dynamic absence) {
+        increment(misses, absence instanceof DescriptionDeferringAbsence ? "AbsentParent" :
+            absence.getClass().getSimpleName());
+    }
+
+    @Override
+    public void conversion(Class<?> type, boolean converted) {
+        increment(converted ? conversions : conversionFailures, type.getSimpleName());
+    }
+
+    @Override
+    public void timeParse(String parser, boolean parsed) {
+        increment(parsed ? timeParses : timeParseFailures, parser);
+    }
+
+    @Override
+    public void xmlParse(long nanos) {
+        xmlParses.increment();
+        xmlParseNanos.add(nanos);
+    }
+
+    /**
+     * Returns current counts, counts recorded concurrently with the snapshot may or may not be included
+     * @return snapshot of current counts
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Resets all counts to zero, counts recorded concurrently with the reset may or may not be kept */
+    public void reset() {
+        hits.reset();
+        misses.clear();
+        conversions.clear();
+        conversionFailures.clear();
+        timeParses.clear();
+        timeParseFailures.clear();
+        xmlParses.reset();
+        xmlParseNanos.reset();
+    }
+
+    /** Immutable counts of an {@link InMemoryDynamicMetrics} */
+    public static final class Snapshot {
+
+        private final long hits;
+        private final Map<String, Long> misses;
+        private final Map<String, Long> conversions;
+        private final Map<String, Long> conversionFailures;
+        private final Map<String, Long> timeParses;
+        private final Map<String, Long> timeParseFailures;
+        private final long xmlParses;
+        private final long xmlParseNanos;
+
+        private Snapshot(InMemoryDynamicMetrics metrics) {
+            this.hits = metrics.hits.sum();
+            this.misses = sum(metrics.misses);
+            this.conversions = sum(metrics.conversions);
+            this.conversionFailures = sum(metrics.conversionFailures);
+            this.timeParses = sum(metrics.timeParses);
+            this.timeParseFailures = sum(metrics.timeParseFailures);
+            this.xmlParses = metrics.xmlParses.sum();
+            this.xmlParseNanos = metrics.xmlParseNanos.sum();
+        }
+
+        /** @return number of gets finding a child */
+        public long hits() {
+            return hits;
+        }
+
+        /** @return number of gets finding no child, by absence type */
+        public Map<String, Long> misses() {
+            return misses;
+        }
+
+        /** @return number of successful conversions, by target type */
+        public Map<String, Long> conversions() {
+            return conversions;
+        }
+
+        /** @return number of failed conversions, by target type */
+        public Map<String, Long> conversionFailures() {
+            return conversionFailures;
+        }
+
+        /** @return number of date-strings parsed, by the parser that succeeded */
+        public Map<String, Long> timeParses() {
+            return timeParses;
+        }
+
+        /** @return number of failed parse attempts, by parser */
+        public Map<String, Long> timeParseFailures() {
+            return timeParseFailures;
+        }
+
+        /** @return number of xml documents parsed */
+        public long xmlParses() {
+            return xmlParses;
+        }
+
+        /** @return total duration of xml parses in nanoseconds */
+        public long xmlParseNanos() {
+            return xmlParseNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "hits: " + hits + ", misses: " + misses +
+                ", conversions: " + conversions + ", conversion failures: " + conversionFailures +
+                ", time parses: " + timeParses + ", time parse failures: " + timeParseFailures +
+                ", xml parses: " + xmlParses + " in " + xmlParseNanos / 1_000_000 + "ms";
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+/**
+ * Java Flight Recorder availability. {@link #EVENTS} is loaded reflectively from {@code JdkJfrEvents}, the only class
+ * referencing {@code jdk.jfr}, which is only compiled by JDK 11+ builds. Runtimes without JFR or without that class
+ * have no events. Events can also be turned off entirely with the system property {@code -Dalexh.weak.jfr=false}
+ */
+final class Jfr {
+
+    /** events instance, or null when JFR isn't available */
+    static final JfrEvents EVENTS = load();
+
+    private static JfrEvents load() {
+        if ("false".equalsIgnoreCase(System.getProperty("alexh.weak.jfr"))) return null;
+        try {
+            Class.forName("jdk.jfr.Event", false, Jfr.class.getClassLoader());
+            return (JfrEvents) Class.forName("alexh.weak.JdkJfrEvents").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    private Jfr() {}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Java Flight Recorder events, implemented by {@code JdkJfrEvents} in {@code src/main/jfr} which is compiled
+ * separately so this library builds against Java 8. Use the {@link Jfr#EVENTS} instance when not null.
+ * Methods do nothing & allocate nothing when their event isn't enabled in a running recording
+ */
+interface JfrEvents {
+
+    /** @return xml parse events are enabled, checked before creating the parse function */
+    boolean xmlParseEnabled();
+
+    /** @return node parsed by the input parser, recorded as an event */
+    Node xmlParse(InputSource xml, Function<InputSource, Node> parser);
+
+    /** @return started event, or null if not enabled */
+    Object timeParseBegin();
+
+    /**
+     * @param started event returned by {@link #timeParseBegin()}
+     * @param parser parser that succeeded, or null if all failed
+     * @param failedParsers parsers attempted before success, or null if none failed
+     */
+    void timeParseCommit(Object started, CharSequence input, String parser, List<String> failedParsers);
+
+    /** @return input stream, counting children & recorded as an event if enabled */
+    Stream<Dynamic> traversal(Stream<Dynamic> children, String order);
+}
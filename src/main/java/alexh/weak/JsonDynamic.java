@@ -0,0 +1,320 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Dynamic implementation for UTF-8 JSON, reading the raw bytes lazily. Objects & arrays index the offsets of their
+ * members the first time they're read, and values are only decoded when requested, so selecting a few values from a
+ * large message decodes just those values & the keys of the objects along their paths.
+ * <p>
+ * JSON objects behave as String keyed Maps, arrays as Lists & other values as their Java equivalents
+ * ie {@code String}, {@code Boolean}, integers as {@code Integer}, {@code Long} or {@code BigDecimal} as they fit
+ * & other numbers as {@code Double}. JSON nulls are absences.
+ * <pre>{@code
+ *     new JsonDynamic(jsonBytes).dget("product.investments.1.id").asString();
+ * }</pre>
+ * The input must not be modified while in use. Malformed JSON throws {@link IllegalArgumentException} when the
+ * malformed part is read, rather than on construction. Only content after the root value, found by skipping over
+ * the structure, is rejected on construction. Numbers must follow the strict JSON grammar, ie no {@code +1} or
+ * {@code 01}.
+ *
+ * @author Alex Butler
+ */
+public class JsonDynamic implements Dynamic, Describer {
+
+    /**
+     * Streams the records of a newline delimited JSON file, one {@link JsonDynamic} per non-blank line.
+     * The file is memory-mapped & records read lazily from the mapping, so record bytes aren't copied.
+     * Parallel streams split the file at newlines, so throughput scales with cores
+     * <pre>{@code
+     *     long errors = JsonDynamic.lines(logFile).parallel()
+     *         .filter(record -> record.get("level").maybe().asString().filter("ERROR"::equals).isPresent())
+     *         .count();
+     * }</pre>
+     * @param ndjson newline delimited UTF-8 JSON file, which must not be modified while streamed
+     * @return ordered stream of records
+     */
+    public static Stream<Dynamic> lines(Path ndjson) {
+        return JsonLines.lines(ndjson);
+    }
+
+    final JsonSource json;
+    final int start;
+    final int end;
+    /** object members, null values are indexed as null entries */
+    private volatile Map<String, Child> members;
+    private volatile Child[] elements;
+    private volatile Object value;
+
+    public JsonDynamic(String json) {
+        this(json.getBytes(UTF_8));
+    }
+
+    /**
+     * Reads UTF-8 json bytes without copying them
+     * @param json UTF-8 json bytes
+     */
+    public JsonDynamic(byte[] json) {
+        this(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Reads the remaining UTF-8 json bytes of a buffer without copying or modifying it
+     * @param json UTF-8 json bytes, heap or direct
+     */
+    public JsonDynamic(ByteBuffer json) {
+        this(new JsonSource(json));
+    }
+
+    private JsonDynamic(JsonSource json) {
+        this(json, json.start, json.end);
+    }
+
+    JsonDynamic(JsonSource json, int start, int end) {
+        this.json = json;
+        this.start = start;
+        this.end = end;
+    }
+
+    private byte type() {
+        return json.at(start);
+    }
+
+    private Map<String, Child> members() {
+        Map<String, Child> members = this.members;
+        if (members == null) {
+            synchronized (this) {
+                members = this.members;
+                if (members == null) {
+                    final Map<String, Child> indexed = new LinkedHashMap<>();
+                    json.forEach(start, end, (key, valueStart, valueEnd) ->
+                        indexed.put(key, json.at(valueStart) == 'n' && isNull(valueStart, valueEnd) ? null :
+                            new Child(json, valueStart, valueEnd, this, key)));
+                    this.members = members = indexed;
+                }
+            }
+        }
+        return members;
+    }
+
+    private Child[] elements() {
+        Child[] elements = this.elements;
+        if (elements == null) {
+            synchronized (this) {
+                elements = this.elements;
+                if (elements == null) {
+                    final List<Child> indexed = new ArrayList<>();
+                    json.forEach(start, end, (key, valueStart, valueEnd) -> {
+                        final int index = indexed.size();
+                        indexed.add(json.at(valueStart) == 'n' && isNull(valueStart, valueEnd) ? null :
+                            new Child(json, valueStart, valueEnd, this, index));
+                    });
+                    this.elements = elements = indexed.toArray(new Child[indexed.size()]);
+                }
+            }
+        }
+        return elements;
+    }
+
+    private boolean isNull(int start, int end) {
+        return json.value(start, end) == null;
+    }
+
+    @Override
+    public Dynamic get(Object key) {
+        return Metrics.lookup(find(key));
+    }
+
+    private Dynamic find(Object key) {
+        switch (type()) {
+            case '{':
+                if (!hasChildren()) return new ParentAbsence.Empty<>(this, key);
+                final Map<String, Child> members = members();
+                final String keyString = key.toString();
+                final Child member = members.get(keyString);
+                if (member != null) return member;
+                if (members.containsKey(keyString)) return new ChildAbsence.Null(this, keyString);
+                return new ChildAbsence.Missing<>(this, key);
+
+            case '[':
+                if (!hasChildren()) return new ParentAbsence.Empty<>(this, key);
+                final Integer index = DynamicList.index(key);
+                if (index == null) return new ChildAbsence.Missing<>(this, key);
+
+                final Child[] elements = elements();
+                if (index < 0 || index >= elements.length) return new ChildAbsence.Missing<>(this, index);
+                return elements[index] != null ? elements[index] : new ChildAbsence.Null(this, index);
+
+            default:
+                return new ParentAbsence.Barren<>(this, key);
+        }
+    }
+
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        switch (type()) {
+            case '{':
+                return hasChildren() ? members().get(key.toString()) : null;
+            case '[':
+                final Integer index = hasChildren() ? DynamicList.index(key) : null;
+                if (index == null) return null;
+                final Child[] elements = elements();
+                return index >= 0 && index < elements.length ? elements[index] : null;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Stream<Dynamic> children() {
+        switch (type()) {
+            case '{': return members().keySet().stream().map(this::get);
+            case '[': return IntStream.range(0, elements().length).mapToObj(this::get);
+            default: return Stream.empty();
+        }
+    }
+
+    @Override
+    public boolean hasChildren() {
+        final byte type = type();
+        return (type == '{' || type == '[') && !json.isEmptyContainer(start, end);
+    }
+
+    @Override
+    public boolean isPresent() {
+        return type() != 'n';
+    }
+
+    /**
+     * Decodes this value, objects & arrays are decoded in full into a LinkedHashMap or ArrayList
+     * @return decoded value
+     */
+    @Override
+    public Object asObject() {
+        if (!isPresent()) throw DynamicExceptions.noSuchElement(() -> "null '" + ROOT_KEY + "' premature end of path *" + ROOT_KEY + "*");
+        Object value = this.value;
+        if (value == null) this.value = value = json.value(start, end);
+        return value;
+    }
+
+    /** Checks type by JSON value type where possible, without decoding */
+    @Override
+    public boolean is(Class<?> type) {
+        switch (type()) {
+            case '{': return type.isAssignableFrom(LinkedHashMap.class);
+            case '[': return type.isAssignableFrom(ArrayList.class);
+            case '"': return type.isAssignableFrom(String.class);
+            case 't':
+            case 'f': return type.isAssignableFrom(Boolean.class);
+            default: return Dynamic.super.is(type);
+        }
+    }
+
+    protected Object keyLiteral() {
+        return ROOT_KEY;
+    }
+
+    @Override
+    public Dynamic key() {
+        return DynamicChild.key(this, keyLiteral());
+    }
+
+    @Override
+    public String describe() {
+        switch (type()) {
+            case '{':
+                if (!hasChildren()) return "Empty-Map";
+                return "Map" + members().keySet().toString();
+            case '[':
+                final String type = "List";
+                switch (hasChildren() ? elements().length : 0) {
+                    case 0: return "Empty-" + type;
+                    case 1: return type + "[0]";
+                    case 2: return type + "[0, 1]";
+                    default: return format("%s[0..%d]", type, elements().length - 1);
+                }
+            case 'n':
+                return "null";
+            default:
+                return asObject().getClass().getSimpleName();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return isPresent() ? asObject().hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final JsonDynamic other = (JsonDynamic) o;
+        if (!isPresent() || !other.isPresent()) return isPresent() == other.isPresent();
+        return Objects.equals(asObject(), other.asObject());
+    }
+
+    @Override
+    public String toString() {
+        return keyLiteral() + ":" + describe();
+    }
+
+    static class Child extends JsonDynamic implements DynamicChild {
+
+        private final Dynamic parent;
+        private final Object key;
+        private DynamicPath path;
+
+        Child(JsonSource json, int start, int end, Dynamic parent, Object key) {
+            super(json, start, end);
+            this.parent = parent;
+            this.key = key;
+        }
+
+        @Override
+        public Dynamic parent() {
+            return parent;
+        }
+
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
+        @Override
+        public Object keyLiteral() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return path() + ":" + describe();
+        }
+    }
+}
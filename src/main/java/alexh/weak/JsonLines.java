@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.uncheckedGet;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits memory-mapped newline delimited JSON into {@link JsonDynamic} records without copying.
+ * Files are mapped in newline aligned segments, as a single mapping is limited to 2GB,
+ * & each segment splits at the newline nearest its middle for parallel streams.
+ * <p>
+ * Limits & positions are set through {@link Buffer}, as the covariant ByteBuffer overrides were added in Java 9
+ */
+class JsonLines implements Spliterator<Dynamic> {
+
+    /** maximum bytes mapped at once */
+    private static final int MAX_SEGMENT = 1 << 30;
+    /** ranges smaller than this are not split further */
+    private static final int MIN_SPLIT = 1 << 16;
+
+    static Stream<Dynamic> lines(Path ndjson) {
+        return uncheckedGet(() -> {
+            try (FileChannel channel = FileChannel.open(ndjson, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                Stream<Dynamic> records = Stream.empty();
+                long position = 0;
+                while (position < size) {
+                    final ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAX_SEGMENT, size - position));
+                    if (position + segment.limit() < size) {
+                        int lastNewline = segment.limit() - 1;
+                        while (lastNewline >= 0 && segment.get(lastNewline) != '\n') lastNewline--;
+                        if (lastNewline < 0)
+                            throw new IllegalArgumentException("Line longer than " + MAX_SEGMENT + " bytes at " + position);
+                        ((Buffer) segment).limit(lastNewline + 1);
+                    }
+                    records = Stream.concat(records, StreamSupport.stream(new JsonLines(segment, 0, segment.limit()), false));
+                    position += segment.limit();
+                }
+                return records;
+            }
+        });
+    }
+
+    private final ByteBuffer buffer;
+    private int from;
+    private final int to;
+
+    private JsonLines(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.from = from;
+        this.to = to;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /** @return index of the next newline at or after the input index, or the range end */
+    private int lineEnd(int index) {
+        while (index < to && buffer.get(index) != '\n') index++;
+        return index;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Dynamic> action) {
+        while (from < to) {
+            final int lineStart = from;
+            final int lineEnd = lineEnd(lineStart);
+            from = lineEnd + 1;
+
+            int content = lineStart;
+            while (content < lineEnd && isWhitespace(buffer.get(content))) content++;
+            if (content == lineEnd) continue; // blank line
+
+            final ByteBuffer line = buffer.duplicate();
+            ((Buffer) line).limit(lineEnd).position(content);
+            action.accept(new JsonDynamic(line));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Dynamic> trySplit() {
+        if (to - from < MIN_SPLIT) return null;
+        final int middle = lineEnd(from + (to - from) / 2) + 1;
+        if (middle >= to) return null;
+
+        final JsonLines prefix = new JsonLines(buffer, from, middle);
+        from = middle;
+        return prefix;
+    }
+
+    /** @return remaining bytes, an upper bound of remaining records */
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
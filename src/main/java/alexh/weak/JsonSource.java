@@ -0,0 +1,293 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal UTF-8 JSON reader over a byte buffer, working with value offsets rather than building a tree.
+ * Values are located by scanning for their end, skipping nested structure by depth without decoding it,
+ * so only the values actually read are decoded.
+ * <p>
+ * Reads are absolute, so instances are thread-safe as long as the buffer content is not modified.
+ * Malformed input throws {@link IllegalArgumentException} when the malformed part is read, except content after the
+ * root value which is rejected on construction.
+ */
+class JsonSource {
+
+    /** Receives object members or array elements as value offsets, key is null for array elements */
+    interface ValueConsumer {
+        void accept(String key, int start, int end);
+    }
+
+    private final ByteBuffer bytes;
+    /** root value offsets */
+    final int start;
+    final int end;
+
+    JsonSource(ByteBuffer json) {
+        this.bytes = json.duplicate();
+        int start = skipWhitespace(json.position(), json.limit());
+        int end = json.limit();
+        while (end > start && isWhitespace(bytes.get(end - 1))) end--;
+        if (start == end) throw new IllegalArgumentException("Empty JSON input");
+        final int rootEnd = valueEnd(start, end);
+        if (rootEnd != end) throw malformed("end of input", skipWhitespace(rootEnd, end));
+        this.start = start;
+        this.end = end;
+    }
+
+    byte at(int index) {
+        return bytes.get(index);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private int skipWhitespace(int index, int end) {
+        while (index < end && isWhitespace(bytes.get(index))) index++;
+        return index;
+    }
+
+    private IllegalArgumentException malformed(String expected, int index) {
+        return new IllegalArgumentException(index < bytes.limit() ?
+            "Malformed JSON, expected " + expected + " at offset " + index + " found '" + (char) bytes.get(index) + "'" :
+            "Malformed JSON, expected " + expected + " at offset " + index + " found end of input");
+    }
+
+    /** @return offset after the value starting at the input offset, without decoding it */
+    int valueEnd(int index, int limit) {
+        switch (bytes.get(index)) {
+            case '"':
+                return stringEnd(index, limit);
+            case '{':
+            case '[':
+                int depth = 0;
+                for (int i = index; i < limit; i++) {
+                    switch (bytes.get(i)) {
+                        case '"':
+                            i = stringEnd(i, limit) - 1;
+                            break;
+                        case '{':
+                        case '[':
+                            depth++;
+                            break;
+                        case '}':
+                        case ']':
+                            if (--depth == 0) return i + 1;
+                    }
+                }
+                throw malformed(bytes.get(index) == '{' ? "'}'" : "']'", limit);
+            default:
+                int i = index;
+                while (i < limit) {
+                    final byte b = bytes.get(i);
+                    if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) break;
+                    i++;
+                }
+                if (i == index) throw malformed("a value", index);
+                return i;
+        }
+    }
+
+    private int stringEnd(int index, int limit) {
+        for (int i = index + 1; i < limit; i++) {
+            final byte b = bytes.get(i);
+            if (b == '\\') i++;
+            else if (b == '"') return i + 1;
+        }
+        throw malformed("'\"'", limit);
+    }
+
+    /** @return true if the object or array at the offset has no members */
+    boolean isEmptyContainer(int start, int end) {
+        final int first = skipWhitespace(start + 1, end);
+        return first < end && (bytes.get(first) == '}' || bytes.get(first) == ']');
+    }
+
+    /** Scans the members of the object, or elements of the array, at the input offsets */
+    void forEach(int start, int end, ValueConsumer consumer) {
+        final boolean object = bytes.get(start) == '{';
+        final byte close = object ? (byte) '}' : (byte) ']';
+
+        int i = skipWhitespace(start + 1, end);
+        if (i < end && bytes.get(i) == close) return;
+
+        while (true) {
+            String key = null;
+            if (object) {
+                if (i >= end || bytes.get(i) != '"') throw malformed("a key", i);
+                final int keyEnd = stringEnd(i, end);
+                key = string(i, keyEnd);
+                i = skipWhitespace(keyEnd, end);
+                if (i >= end || bytes.get(i) != ':') throw malformed("':'", i);
+                i = skipWhitespace(i + 1, end);
+            }
+            if (i >= end) throw malformed("a value", i);
+            final int valueEnd = valueEnd(i, end);
+            consumer.accept(key, i, valueEnd);
+
+            i = skipWhitespace(valueEnd, end);
+            if (i >= end) throw malformed("'" + (char) close + "'", i);
+            if (bytes.get(i) == close) return;
+            if (bytes.get(i) != ',') throw malformed("',' or '" + (char) close + "'", i);
+            i = skipWhitespace(i + 1, end);
+        }
+    }
+
+    /**
+     * Decodes the value at the input offsets, objects into LinkedHashMaps, arrays into ArrayLists,
+     * integers into Integer, Long or BigDecimal as they fit, other numbers into Doubles
+     */
+    Object value(int start, int end) {
+        switch (bytes.get(start)) {
+            case '"':
+                return string(start, end);
+            case '{':
+                final Map<String, Object> map = new LinkedHashMap<>();
+                forEach(start, end, (key, valueStart, valueEnd) -> map.put(key, value(valueStart, valueEnd)));
+                return map;
+            case '[':
+                final List<Object> list = new ArrayList<>();
+                forEach(start, end, (key, valueStart, valueEnd) -> list.add(value(valueStart, valueEnd)));
+                return list;
+            case 't':
+                return literal(start, end, "true", Boolean.TRUE);
+            case 'f':
+                return literal(start, end, "false", Boolean.FALSE);
+            case 'n':
+                return literal(start, end, "null", null);
+            default:
+                return number(start, end);
+        }
+    }
+
+    private Object literal(int start, int end, String literal, Object value) {
+        boolean matches = end - start == literal.length();
+        for (int i = 0; matches && i < literal.length(); i++)
+            matches = bytes.get(start + i) == literal.charAt(i);
+        if (!matches) throw malformed(literal, start);
+        return value;
+    }
+
+    /** @return offset after the digits from the input offset */
+    private int digitsEnd(int index, int end) {
+        while (index < end && bytes.get(index) >= '0' && bytes.get(index) <= '9') index++;
+        return index;
+    }
+
+    /** Checks the RFC 8259 number grammar, {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?} */
+    private void checkNumber(int start, int end) {
+        int i = start;
+        if (i < end && bytes.get(i) == '-') i++;
+        if (i < end && bytes.get(i) == '0') i++;
+        else {
+            final int integerStart = i;
+            i = digitsEnd(i, end);
+            if (i == integerStart) throw malformed("a value", start);
+        }
+        if (i < end && bytes.get(i) == '.') {
+            final int fractionStart = ++i;
+            i = digitsEnd(i, end);
+            if (i == fractionStart) throw malformed("a digit", i);
+        }
+        if (i < end && (bytes.get(i) == 'e' || bytes.get(i) == 'E')) {
+            i++;
+            if (i < end && (bytes.get(i) == '+' || bytes.get(i) == '-')) i++;
+            final int exponentStart = i;
+            i = digitsEnd(i, end);
+            if (i == exponentStart) throw malformed("a digit", i);
+        }
+        if (i != end) throw malformed("a number", i);
+    }
+
+    private Object number(int start, int end) {
+        checkNumber(start, end);
+        final char[] chars = new char[end - start];
+        boolean integer = true;
+        for (int i = 0; i < chars.length; i++) {
+            final byte b = bytes.get(start + i);
+            if (b == '.' || b == 'e' || b == 'E') integer = false;
+            chars[i] = (char) b;
+        }
+        if (!integer) return Double.valueOf(new String(chars));
+        final BigDecimal value = new BigDecimal(chars);
+        final long longValue;
+        try { longValue = value.longValueExact(); }
+        catch (ArithmeticException tooLarge) { return value; }
+        if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) return (int) longValue;
+        return longValue;
+    }
+
+    /** @return decoded string of the quoted string at the input offsets */
+    String string(int start, int end) {
+        final int contentEnd = end - 1;
+        StringBuilder escaped = null;
+        int segment = start + 1;
+        for (int i = segment; i < contentEnd; i++) {
+            if (bytes.get(i) != '\\') continue;
+
+            if (escaped == null) escaped = new StringBuilder(contentEnd - start);
+            escaped.append(utf8(segment, i));
+            final byte escape = bytes.get(++i);
+            switch (escape) {
+                case '"': escaped.append('"'); break;
+                case '\\': escaped.append('\\'); break;
+                case '/': escaped.append('/'); break;
+                case 'b': escaped.append('\b'); break;
+                case 'f': escaped.append('\f'); break;
+                case 'n': escaped.append('\n'); break;
+                case 'r': escaped.append('\r'); break;
+                case 't': escaped.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= contentEnd) throw malformed("a unicode escape", i);
+                    int codeUnit = 0;
+                    for (int hex = 1; hex <= 4; hex++) {
+                        final int digit = Character.digit((char) bytes.get(i + hex), 16);
+                        if (digit == -1) throw malformed("a hex digit", i + hex);
+                        codeUnit = codeUnit * 16 + digit;
+                    }
+                    escaped.append((char) codeUnit);
+                    i += 4;
+                    break;
+                default:
+                    throw malformed("an escape character", i);
+            }
+            segment = i + 1;
+        }
+        if (escaped == null) return utf8(start + 1, contentEnd);
+        return escaped.append(utf8(segment, contentEnd)).toString();
+    }
+
+    private String utf8(int start, int end) {
+        if (start >= end) return "";
+        if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + start, end - start, UTF_8);
+        final ByteBuffer view = bytes.duplicate();
+        // Buffer cast keeps Java 8 runtime compatibility, ByteBuffer#position(int) is a Java 9 override
+        ((Buffer) view).position(start);
+        final byte[] copy = new byte[end - start];
+        view.get(copy);
+        return new String(copy, UTF_8);
+    }
+}
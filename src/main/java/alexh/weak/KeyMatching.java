@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.Locale;
+
+/**
+ * Key lookup modes, see {@link Dynamic#from(Object, KeyMatching)}
+ *
+ * @author Alex Butler
+ */
+public enum KeyMatching {
+
+    /** keys match as they do by default */
+    EXACT {
+        @Override
+        public String normalize(String key) {
+            return key;
+        }
+    },
+
+    /** keys match ignoring case, ie {@code customerId} matches {@code CUSTOMERID} */
+    CASE_INSENSITIVE {
+        @Override
+        public String normalize(String key) {
+            return key.toLowerCase(Locale.ROOT);
+        }
+    },
+
+    /**
+     * keys match ignoring case, underscores, hyphens & spaces,
+     * ie {@code customerId} matches {@code CustomerID}, {@code customer_id} & {@code customer-id}
+     */
+    NORMALIZED {
+        @Override
+        public String normalize(String key) {
+            final String lowerCase = key.toLowerCase(Locale.ROOT);
+            int i = 0;
+            while (i < lowerCase.length() && !isSeparator(lowerCase.charAt(i))) i++;
+            if (i == lowerCase.length()) return lowerCase;
+
+            final StringBuilder normalized = new StringBuilder(lowerCase.length()).append(lowerCase, 0, i);
+            for (; i < lowerCase.length(); i++) {
+                final char c = lowerCase.charAt(i);
+                if (!isSeparator(c)) normalized.append(c);
+            }
+            return normalized.toString();
+        }
+
+        private boolean isSeparator(char c) {
+            return c == '_' || c == '-' || c == ' ';
+        }
+    };
+
+    /**
+     * @param key key string
+     * @return form of the key equal to the forms of all the keys it matches
+     */
+    public abstract String normalize(String key);
+}
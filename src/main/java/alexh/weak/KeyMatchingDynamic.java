@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * View of a Dynamic matching keys by a {@link KeyMatching} mode, see {@link Dynamic#from(Object, KeyMatching)}.
+ * Each node indexes its children by key & normalized key the first time it's read, wrapping them once,
+ * so repeated reads are hash lookups. Unread subtrees are never indexed.
+ * <p>
+ * XML element keys match with or without a {@code [0]} index & attributes also match without the {@code @} prefix,
+ * after any element of that name, as with {@link XmlDynamic#get(Object)}
+ */
+class KeyMatchingDynamic implements Dynamic, Describer {
+
+    private static final String FIRST_INDEX = "[0]";
+
+    /** children by key string & by normalized key string, first wins */
+    private static class Index {
+        final Map<String, Dynamic> byKey = new LinkedHashMap<>();
+        final Map<String, Dynamic> byNormalized = new HashMap<>();
+    }
+
+    protected final Dynamic source;
+    private final KeyMatching matching;
+    private volatile Index index;
+
+    KeyMatchingDynamic(Dynamic source, KeyMatching matching) {
+        this.source = source;
+        this.matching = matching;
+    }
+
+    private boolean isXml() {
+        return source instanceof XmlDynamic;
+    }
+
+    private String normalizedKey(String key) {
+        if (isXml() && key.endsWith(FIRST_INDEX)) key = key.substring(0, key.length() - FIRST_INDEX.length());
+        return matching.normalize(key);
+    }
+
+    private Index index() {
+        Index index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    final Index built = new Index();
+                    source.children().forEach(child -> {
+                        final Object key = child.key().asObject();
+                        final String keyString = key.toString();
+                        final Dynamic indexed = child.isPresent() ? new Child(child, matching, this, key) :
+                            new ChildAbsence.Null(this, key);
+                        built.byKey.putIfAbsent(keyString, indexed);
+                        built.byNormalized.putIfAbsent(normalizedKey(keyString), indexed);
+                    });
+                    if (isXml()) {
+                        built.byKey.forEach((key, child) -> {
+                            if (key.startsWith("@")) built.byNormalized.putIfAbsent(normalizedKey(key.substring(1)), child);
+                        });
+                    }
+                    this.index = index = built;
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public Dynamic get(Object key) {
+        if (isXml()) {
+            if (key instanceof XmlPath) return ((XmlPath) key).evaluate(this);
+            if (key.toString().contains(XmlPath.SEPARATOR)) return get(key.toString(), XmlPath.SEPARATOR);
+        }
+
+        final String keyString = key.toString();
+        final Index index = index();
+        final Dynamic exact = index.byKey.get(keyString);
+        if (exact != null) return exact;
+
+        final Dynamic normalized = index.byNormalized.get(normalizedKey(keyString));
+        if (normalized != null) return normalized;
+
+        // less common keys, ie "ns::name", are resolved by the source
+        final Dynamic match = source.get(key);
+        if (!match.isPresent()) return match;
+        return new Child(match, matching, this, match.key().asObject());
+    }
+
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (isXml() && (key instanceof XmlPath || key.toString().contains(XmlPath.SEPARATOR))) {
+            final Dynamic child = get(key);
+            return child.isPresent() ? child : null;
+        }
+
+        final String keyString = key.toString();
+        final Index index = index();
+        Dynamic child = index.byKey.get(keyString);
+        if (child == null) child = index.byNormalized.get(normalizedKey(keyString));
+        if (child != null) return child.isPresent() ? child : null;
+
+        final Dynamic match = source.getOrNull(key);
+        return match != null ? new Child(match, matching, this, match.key().asObject()) : null;
+    }
+
+    @Override
+    public Stream<Dynamic> children() {
+        return index().byKey.values().stream();
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return source.hasChildren();
+    }
+
+    @Override
+    public boolean isPresent() {
+        return source.isPresent();
+    }
+
+    @Override
+    public Object asObject() {
+        return source.asObject();
+    }
+
+    @Override
+    public boolean is(Class<?> type) {
+        return source.is(type);
+    }
+
+    protected Object keyLiteral() {
+        return ROOT_KEY;
+    }
+
+    @Override
+    public Dynamic key() {
+        return DynamicChild.key(this, keyLiteral());
+    }
+
+    @Override
+    public String describe() {
+        return source instanceof Describer ? ((Describer) source).describe() : source.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final KeyMatchingDynamic other = (KeyMatchingDynamic) o;
+        return matching == other.matching && source.equals(other.source);
+    }
+
+    @Override
+    public String toString() {
+        return keyLiteral() + ":" + describe();
+    }
+
+    static class Child extends KeyMatchingDynamic implements DynamicChild {
+
+        private final Dynamic parent;
+        private final Object key;
+        private DynamicPath path;
+
+        Child(Dynamic source, KeyMatching matching, Dynamic parent, Object key) {
+            super(source, matching);
+            this.parent = parent;
+            this.key = key;
+        }
+
+        @Override
+        public Dynamic parent() {
+            return parent;
+        }
+
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
+        @Override
+        protected Object keyLiteral() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return path() + ":" + describe();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/** Key path splitting by a literal separator, without compiling a regex per path */
+final class KeyPath {
+
+    /** @return keys of the path, exactly as {@code path.split(Pattern.quote(separator))} */
+    static String[] split(String path, String separator) {
+        if (separator.isEmpty()) return path.split(Pattern.quote(separator));
+
+        int index = path.indexOf(separator);
+        if (index == -1) return new String[]{ path };
+
+        final List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (index != -1) {
+            keys.add(path.substring(start, index));
+            start = index + separator.length();
+            index = path.indexOf(separator, start);
+        }
+        keys.add(path.substring(start));
+
+        // trailing empty strings are discarded, as by String#split
+        int size = keys.size();
+        while (size > 0 && keys.get(size - 1).isEmpty()) size--;
+        return keys.subList(0, size).toArray(new String[size]);
+    }
+
+    private KeyPath() {/* static */}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code toString()} to key index of a map, so String lookups of non-String keyed maps are constant-time. Held by
+ * the {@link DynamicMap} wrapper, built lazily on its first String lookup missing the map's keys.
+ * <p>
+ * An index is rebuilt when its map's size changes & hits are checked against the map. Mutations replacing keys while
+ * keeping the size can't be seen by the size guard, so misses are confirmed by scanning the keys.
+ */
+final class MapKeyIndex {
+
+    /** maps smaller than this are scanned, rather than indexed */
+    static final int MIN_SIZE = 16;
+
+    /**
+     * @param index previously built index of the map, or null
+     * @return the input index while its size matches the map, a new index, or null if the map is small enough to scan
+     */
+    static MapKeyIndex of(Map<?, ?> map, MapKeyIndex index) {
+        if (map.size() < MIN_SIZE) return null;
+        return index != null && index.size == map.size() ? index : new MapKeyIndex(map);
+    }
+
+    /** @return first key of the map, in iteration order, with the input toString value, or null */
+    static Object scan(Map<?, ?> map, String keyString) {
+        for (Object key : map.keySet()) {
+            if (key != null && keyString.equals(key.toString())) return key;
+        }
+        return null;
+    }
+
+    private final int size;
+    /** keys by toString, or null if all keys are Strings & so already found by {@code containsKey} */
+    private final Map<String, Object> keys;
+
+    private MapKeyIndex(Map<?, ?> map) {
+        final Map<String, Object> keys = new HashMap<>(map.size() * 4 / 3 + 1);
+        boolean allStrings = true;
+        for (Object key : map.keySet()) {
+            if (key == null) continue;
+            if (!(key instanceof String)) allStrings = false;
+            keys.putIfAbsent(key.toString(), key);
+        }
+        this.size = map.size();
+        this.keys = allStrings ? null : keys;
+    }
+
+    /** @return first key of the map, in iteration order, with the input toString value, or null */
+    Object keyOf(Map<?, ?> map, String keyString) {
+        final Object key = keys != null ? keys.get(keyString) : null;
+        if (key != null && map.containsKey(key)) return key;
+        return scan(map, keyString);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+/** Holder of the registered {@link DynamicMetrics}, helpers read it once & do nothing if none is registered */
+final class Metrics {
+
+    static volatile DynamicMetrics current;
+
+    /** @return input get result, recorded as a hit or miss */
+    static Dynamic lookup(Dynamic result) {
+        final DynamicMetrics metrics = current;
+        if (metrics != null) {
+            if (result.isPresent()) metrics.hit(result);
+            else metrics.miss(result);
+        }
+        return result;
+    }
+
+    /**
+     * getOrNull overrides return {@code presentOrNull(get(key))} while recording, so lookups are recorded as gets
+     * whichever method is used. Unrecorded getOrNull calls still create no absences
+     * @return a {@link DynamicMetrics} is registered
+     */
+    static boolean recording() {
+        return current != null;
+    }
+
+    /** @return input get result if present, otherwise null */
+    static Dynamic presentOrNull(Dynamic result) {
+        return result.isPresent() ? result : null;
+    }
+
+    static void conversion(Class<?> type, boolean converted) {
+        final DynamicMetrics metrics = current;
+        if (metrics != null) metrics.conversion(type, converted);
+    }
+
+    private Metrics() {}
+}
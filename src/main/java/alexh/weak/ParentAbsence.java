@@ -21,7 +21,6 @@ import static java.util.Collections.emptyList;
 import alexh.LiteJoiner;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 public abstract class ParentAbsence<Parent extends Dynamic> extends AbstractAbsence<Parent> implements IssueDescribingChild {
 
@@ -41,12 +40,12 @@ public abstract class ParentAbsence<Parent extends Dynamic> extends AbstractAbse
 
     @Override
     public Dynamic get(Object key) {
-        return new DescriptionDeferringAbsence(this, key);
+        return Metrics.lookup(new DescriptionDeferringAbsence(this, key));
     }
 
     @Override
     public Object asObject() {
-        throw new NoSuchElementException(describeIssue(emptyList()));
+        throw DynamicExceptions.noSuchElement(() -> describeIssue(emptyList()));
     }
 
     public static class Empty<P extends Dynamic & Describer> extends ParentAbsence<P> {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.util.Collections.unmodifiableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled set of dot separated paths, selected together so keys shared by multiple paths are only got once.
+ * Paths are held in a trie, so selecting {@code order.customer.name} & {@code order.customer.address.city} gets
+ * {@code order} & {@code customer} once. Each result is equivalent to {@link Dynamic#dget(String)} of its path
+ * <pre>{@code
+ *     static final PathSet ORDER = PathSet.of("order.customer.name", "order.customer.address.city", "order.lines.0.sku");
+ *     ...
+ *     Dynamic[] values = ORDER.select(message); // [name, city, sku], present values or absences
+ * }</pre>
+ * Instances are immutable, so may be compiled once & shared
+ *
+ * @author Alex Butler
+ */
+public final class PathSet {
+
+    /** trie node, child keys in order of first appearance */
+    private static class Node {
+        final String key;
+        final List<Node> children = new ArrayList<>(2);
+        /** indexes of the paths ending at this node */
+        int[] ends = new int[0];
+
+        Node(String key) {
+            this.key = key;
+        }
+
+        Node child(String key) {
+            for (Node child : children) {
+                if (child.key.equals(key)) return child;
+            }
+            final Node child = new Node(key);
+            children.add(child);
+            return child;
+        }
+
+        void end(int index) {
+            ends = Arrays.copyOf(ends, ends.length + 1);
+            ends[ends.length - 1] = index;
+        }
+    }
+
+    /**
+     * Compiles dot separated paths, as would be passed to {@link Dynamic#dget(String)}
+     * @param dotSeparatedPaths paths, duplicates are allowed
+     * @return compiled path set
+     */
+    public static PathSet of(String... dotSeparatedPaths) {
+        return new PathSet(dotSeparatedPaths);
+    }
+
+    private final List<String> paths;
+    private final Node root = new Node(null);
+
+    private PathSet(String[] dotSeparatedPaths) {
+        this.paths = unmodifiableList(new ArrayList<>(Arrays.asList(dotSeparatedPaths)));
+        for (int index = 0; index < dotSeparatedPaths.length; index++) {
+            Node node = root;
+            for (String key : KeyPath.split(dotSeparatedPaths[index], ".")) node = node.child(key);
+            node.end(index);
+        }
+    }
+
+    /** @return compiled paths, in order */
+    public List<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Selects all paths from the input, getting each shared key once
+     * @param from dynamic to select from
+     * @return results in path order, present values or absences as {@link Dynamic#dget(String)}
+     */
+    public Dynamic[] select(Dynamic from) {
+        final Dynamic[] results = new Dynamic[paths.size()];
+        select(from, root, results);
+        return results;
+    }
+
+    /**
+     * As {@link #select(Dynamic)} returning results by path
+     * @param from dynamic to select from
+     * @return results by path, in path order
+     */
+    public Map<String, Dynamic> selectMap(Dynamic from) {
+        final Dynamic[] results = select(from);
+        final Map<String, Dynamic> byPath = new LinkedHashMap<>(results.length * 4 / 3 + 1);
+        for (int index = 0; index < results.length; index++) byPath.put(paths.get(index), results[index]);
+        return byPath;
+    }
+
+    private static void select(Dynamic value, Node node, Dynamic[] results) {
+        for (int end : node.ends) results[end] = value;
+        for (Node child : node.children) select(value.get(child.key), child, results);
+    }
+
+    @Override
+    public String toString() {
+        return "PathSet" + paths;
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.weak.DynamicSnapshot.*;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Dynamic reading a {@link DynamicSnapshot} value in place. Instances are just a buffer & an offset, child lookups
+ * binary search the key dictionary & sorted map entries of the mapped bytes, nothing is decoded until requested.
+ * Maps behave as {@link DynamicMap}, lists as {@link DynamicList} & other values as {@link DynamicSomething}.
+ * <p>
+ * Reads are absolute, so instances are thread-safe.
+ */
+class SnapshotDynamic implements Dynamic, Describer {
+
+    /** maps this small are scanned rather than binary searched */
+    private static final int LINEAR_SCAN_MAX = 8;
+    /** offset of missing values */
+    private static final int NO_VALUE = -2;
+
+    final ByteBuffer bytes;
+    final int offset;
+
+    SnapshotDynamic(ByteBuffer bytes, int offset) {
+        this.bytes = bytes;
+        this.offset = offset;
+    }
+
+    private byte type() {
+        return bytes.get(offset);
+    }
+
+    /** @return map entry or list element count */
+    private int count() {
+        return bytes.getInt(offset + 1);
+    }
+
+    private int entryKeyId(int entry) {
+        return bytes.getInt(offset + 5 + entry * 8);
+    }
+
+    private int entryValueOffset(int entry) {
+        return bytes.getInt(offset + 9 + entry * 8);
+    }
+
+    private int elementOffset(int index) {
+        return bytes.getInt(offset + 5 + index * 4);
+    }
+
+    /** @return entry with the input key id, or -1 */
+    private int entryOf(int keyId) {
+        final int count = count();
+        if (count <= LINEAR_SCAN_MAX) {
+            for (int entry = 0; entry < count; entry++) {
+                if (entryKeyId(entry) == keyId) return entry;
+            }
+            return -1;
+        }
+        final int sorted = offset + 5 + count * 8;
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int entry = bytes.getInt(sorted + middle * 4);
+            final int compared = Integer.compare(entryKeyId(entry), keyId);
+            if (compared == 0) return entry;
+            if (compared < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        return -1;
+    }
+
+    /** @return dictionary id of the input key, or -1 if no map in the snapshot has it */
+    private int keyId(String key) {
+        final byte[] utf8 = key.getBytes(UTF_8);
+        int low = 0, high = bytes.getInt(HEADER_LENGTH) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int compared = compareKey(middle, utf8);
+            if (compared == 0) return middle;
+            if (compared < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        return -1;
+    }
+
+    /** Compares a dictionary key with utf8 bytes, without decoding it */
+    private int compareKey(int keyId, byte[] utf8) {
+        final int keyOffset = bytes.getInt(HEADER_LENGTH + 4 + keyId * 4);
+        final int length = bytes.getInt(keyOffset);
+        for (int i = 0; i < Math.min(length, utf8.length); i++) {
+            final int compared = Integer.compare(bytes.get(keyOffset + 4 + i) & 0xFF, utf8[i] & 0xFF);
+            if (compared != 0) return compared;
+        }
+        return Integer.compare(length, utf8.length);
+    }
+
+    private String key(int keyId) {
+        return utf8(bytes.getInt(HEADER_LENGTH + 4 + keyId * 4));
+    }
+
+    /** @return decoded length prefixed utf8 at the input offset */
+    private String utf8(int at) {
+        final int length = bytes.getInt(at);
+        if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + at + 4, length, UTF_8);
+        final ByteBuffer view = bytes.duplicate();
+        ((Buffer) view).position(at + 4); // not ByteBuffer#position(int), added in Java 9
+        final byte[] copy = new byte[length];
+        view.get(copy);
+        return new String(copy, UTF_8);
+    }
+
+    /** @return offset of the map value with the input key, null values have {@link DynamicSnapshot#NULL_OFFSET} */
+    private int valueOffset(String key) {
+        final int keyId = keyId(key);
+        final int entry = keyId == -1 ? -1 : entryOf(keyId);
+        return entry == -1 ? NO_VALUE : entryValueOffset(entry);
+    }
+
+    private Dynamic child(int valueOffset, Object key) {
+        return valueOffset == NULL_OFFSET ? new ChildAbsence.Null(this, key) : new Child(bytes, valueOffset, this, key);
+    }
+
+    @Override
+    public Dynamic get(Object key) {
+        return Metrics.lookup(find(key));
+    }
+
+    private Dynamic find(Object key) {
+        switch (type()) {
+            case MAP:
+                if (count() == 0) return new ParentAbsence.Empty<>(this, key);
+                final String keyString = String.valueOf(key);
+                final int valueOffset = valueOffset(keyString);
+                if (valueOffset == NO_VALUE) return new ChildAbsence.Missing<>(this, key);
+                return child(valueOffset, keyString);
+
+            case LIST:
+                final int count = count();
+                if (count == 0) return new ParentAbsence.Empty<>(this, key);
+                final Integer index = DynamicList.index(key);
+                if (index == null) return new ChildAbsence.Missing<>(this, key);
+                if (index < 0 || index >= count) return new ChildAbsence.Missing<>(this, index);
+                return child(elementOffset(index), index);
+
+            default:
+                return new ParentAbsence.Barren<>(this, key);
+        }
+    }
+
+    @Override
+    public Dynamic getOrNull(Object key) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(key));
+        switch (type()) {
+            case MAP:
+                if (count() == 0) return null;
+                final String keyString = String.valueOf(key);
+                final int valueOffset = valueOffset(keyString);
+                return valueOffset >= 0 ? new Child(bytes, valueOffset, this, keyString) : null;
+
+            case LIST:
+                final Integer index = DynamicList.index(key);
+                if (index == null || index < 0 || index >= count()) return null;
+                final int elementOffset = elementOffset(index);
+                return elementOffset != NULL_OFFSET ? new Child(bytes, elementOffset, this, index) : null;
+
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Stream<Dynamic> children() {
+        switch (type()) {
+            case MAP: return IntStream.range(0, count()).mapToObj(entry ->
+                child(entryValueOffset(entry), key(entryKeyId(entry))));
+            case LIST: return IntStream.range(0, count()).mapToObj(index -> child(elementOffset(index), index));
+            default: return Stream.empty();
+        }
+    }
+
+    @Override
+    public boolean hasChildren() {
+        final byte type = type();
+        return (type == MAP || type == LIST) && count() > 0;
+    }
+
+    @Override
+    public boolean isPresent() {
+        return true;
+    }
+
+    /**
+     * Decodes this value, maps & lists are decoded in full into a LinkedHashMap or ArrayList
+     * @return decoded value
+     */
+    @Override
+    public Object asObject() {
+        return value(offset);
+    }
+
+    private Object value(int at) {
+        if (at == NULL_OFFSET) return null;
+        switch (bytes.get(at)) {
+            case MAP:
+                final SnapshotDynamic map = new SnapshotDynamic(bytes, at);
+                final Map<String, Object> decodedMap = new LinkedHashMap<>();
+                for (int entry = 0; entry < map.count(); entry++)
+                    decodedMap.put(key(map.entryKeyId(entry)), value(map.entryValueOffset(entry)));
+                return decodedMap;
+            case LIST:
+                final SnapshotDynamic list = new SnapshotDynamic(bytes, at);
+                final List<Object> decodedList = new ArrayList<>(list.count());
+                for (int index = 0; index < list.count(); index++) decodedList.add(value(list.elementOffset(index)));
+                return decodedList;
+            case STRING: return utf8(at + 1);
+            case DECIMAL: return new BigDecimal(utf8(at + 1));
+            case INT: return bytes.getInt(at + 1);
+            case LONG: return bytes.getLong(at + 1);
+            case DOUBLE: return bytes.getDouble(at + 1);
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            default: throw new IllegalStateException("Corrupt Dynamic snapshot, unknown tag " + bytes.get(at) + " at " + at);
+        }
+    }
+
+    /** Checks type by snapshot tag, without decoding */
+    @Override
+    public boolean is(Class<?> type) {
+        return type.isAssignableFrom(javaType());
+    }
+
+    private Class<?> javaType() {
+        switch (type()) {
+            case MAP: return LinkedHashMap.class;
+            case LIST: return ArrayList.class;
+            case STRING: return String.class;
+            case DECIMAL: return BigDecimal.class;
+            case INT: return Integer.class;
+            case LONG: return Long.class;
+            case DOUBLE: return Double.class;
+            default: return Boolean.class;
+        }
+    }
+
+    protected Object keyLiteral() {
+        return ROOT_KEY;
+    }
+
+    @Override
+    public Dynamic key() {
+        return DynamicChild.key(this, keyLiteral());
+    }
+
+    @Override
+    public String describe() {
+        switch (type()) {
+            case MAP:
+                if (count() == 0) return "Empty-Map";
+                final List<String> keys = new ArrayList<>(count());
+                for (int entry = 0; entry < count(); entry++) keys.add(key(entryKeyId(entry)));
+                return "Map" + keys;
+            case LIST:
+                final String type = "List";
+                switch (count()) {
+                    case 0: return "Empty-" + type;
+                    case 1: return type + "[0]";
+                    case 2: return type + "[0, 1]";
+                    default: return format("%s[0..%d]", type, count() - 1);
+                }
+            default:
+                return javaType().getSimpleName();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return asObject().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final SnapshotDynamic other = (SnapshotDynamic) o;
+        if (bytes == other.bytes && offset == other.offset) return true;
+        return Objects.equals(asObject(), other.asObject());
+    }
+
+    @Override
+    public String toString() {
+        return keyLiteral() + ":" + describe();
+    }
+
+    static class Child extends SnapshotDynamic implements DynamicChild {
+
+        private final Dynamic parent;
+        private final Object key;
+        private DynamicPath path;
+
+        Child(ByteBuffer bytes, int offset, Dynamic parent, Object key) {
+            super(bytes, offset);
+            this.parent = parent;
+            this.key = key;
+        }
+
+        @Override
+        public Dynamic parent() {
+            return parent;
+        }
+
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
+        @Override
+        public Object keyLiteral() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return path() + ":" + describe();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.uncheckedGet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Bounded least-recently-used cache of compiled XPath expressions. XPath objects & expressions are not thread-safe,
+ * so each thread has its own cache & compiles each expression at most once while it stays cached
+ */
+class XPathCache {
+
+    static final int MAX_EXPRESSIONS_PER_THREAD = 256;
+
+    private static final ThreadLocal<XPathCache> THREAD_CACHE =
+        ThreadLocal.withInitial(() -> new XPathCache(MAX_EXPRESSIONS_PER_THREAD));
+
+    /** @return expression compiled for use by the current thread only */
+    static XPathExpression compile(String expression) {
+        return THREAD_CACHE.get().get(expression);
+    }
+
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final Map<String, XPathExpression> expressions;
+
+    private XPathCache(int maxSize) {
+        this.expressions = new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private XPathExpression get(String expression) {
+        XPathExpression compiled = expressions.get(expression);
+        if (compiled == null) {
+            compiled = uncheckedGet(() -> xpath.compile(expression));
+            expressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+}
@@ -17,22 +17,37 @@ package alexh.weak;
 
 import static alexh.Unchecker.uncheckedGet;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
+import org.w3c.dom.Attr;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
 import org.w3c.dom.ls.LSSerializer;
 import org.xml.sax.InputSource;
 
@@ -65,8 +80,13 @@ import org.xml.sax.InputSource;
 public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
 
     private static final String FALLBACK_TO_STRING = "Xml[unable to serialize]";
-    private static final String NONE_NAMESPACE = "none";
-    private static final String NS_INDICATOR = "::";
+    private static final String NONE_NAMESPACE = XmlPath.NONE_NAMESPACE;
+    private static final String NS_INDICATOR = XmlPath.NS_INDICATOR;
+
+    private static final DocumentBuilderPool PARSERS =
+        new DocumentBuilderPool(Runtime.getRuntime().availableProcessors());
+    /** Serializers are not thread-safe, but are reusable so one is kept per thread */
+    private static final ThreadLocal<ThreadSerializer> THREAD_SERIALIZER = new ThreadLocal<>();
 
     /** Needs to be thread-safe, childNodes NodeList is not! */
     private static Stream<Node> streamChildNodes(Node node) {
@@ -86,10 +106,33 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
     }
 
     private static Node inputSourceToNode(InputSource xml) {
-        final XPathExpression all = uncheckedGet(() -> XPathFactory.newInstance().newXPath().compile("//*"));
-        synchronized (XPathExpression.class) { // evaluate not thread-safe
-            return uncheckedGet(() -> (Node) all.evaluate(xml, XPathConstants.NODE));
-        }
+        return parse(PARSERS, xml);
+    }
+
+    /** Parses with a pool's builders, recording {@link DynamicMetrics} & JFR events, for all parsed XmlDynamics */
+    static Node parse(DocumentBuilderPool parsers, InputSource xml) {
+        final JfrEvents events = Jfr.EVENTS;
+        if (events != null && events.xmlParseEnabled())
+            return events.xmlParse(xml, source -> measuredParse(parsers, source));
+        return measuredParse(parsers, xml);
+    }
+
+    private static Node measuredParse(DocumentBuilderPool parsers, InputSource xml) {
+        final DynamicMetrics metrics = Metrics.current;
+        if (metrics == null) return parsers.parse(xml);
+
+        final long start = System.nanoTime();
+        final Node node = parsers.parse(xml);
+        metrics.xmlParse(System.nanoTime() - start);
+        return node;
+    }
+
+    private static ByteBuffer map(Path xml) {
+        return uncheckedGet(() -> {
+            try (FileChannel channel = FileChannel.open(xml, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        });
     }
 
     /**
@@ -108,32 +151,45 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
      * @return predicate to match XmlDynamic instances of elements with input name
      */
     public static Predicate<? super Dynamic> hasElementName(String elementName) {
-        final String[] nsKey = elementName.split(NS_INDICATOR);
+        final int nsIndex = elementName.indexOf(NS_INDICATOR);
+        final boolean namespaced = nsIndex != -1 && elementName.indexOf(NS_INDICATOR, nsIndex + 1) == -1
+            && nsIndex + NS_INDICATOR.length() < elementName.length();
+        final String namespace = namespaced ? elementName.substring(0, nsIndex) : null;
+        final String simpleName = namespaced ? elementName.substring(nsIndex + NS_INDICATOR.length()) : elementName;
 
         return element -> {
             if (!(element instanceof XmlDynamic)) return false;
 
-            String simpleName = elementName;
-            if (nsKey.length == 2) {
-                String namespace = nsKey[0];
+            if (namespaced) {
                 String elNamespace = ((XmlDynamic) element).inner.getNamespaceURI();
                 if (NONE_NAMESPACE.equals(namespace)) {
                     if (elNamespace != null) return false;
                 }
                 else if (!namespace.equals(elNamespace)) return false;
-                simpleName = nsKey[1];
             }
 
-            String key = element.key().asString();
-            if (key.endsWith("]"))
-                key = key.substring(0, key.lastIndexOf("["));
-
-            return key.equalsIgnoreCase(simpleName);
+            // compare the key without any index suffix, avoiding substring allocation
+            final String key = ((XmlDynamic) element).keyLiteral().toString();
+            final int nameLength = key.endsWith("]") ? key.lastIndexOf('[') : key.length();
+            return nameLength == simpleName.length() && key.regionMatches(true, 0, simpleName, 0, nameLength);
         };
     }
 
+    /** hash of xml structurally hashing to 0, as 0 marks an uncomputed hash */
+    private static final int ZERO_HASH = 0x2F0BA711;
+
+    /** structural hash, lazily computed, 0 until then */
+    private int hash;
+    /** element subtree hashes of the tree, shared with child wrappers */
+    private final XmlStructure.Hashes hashes;
+
     public XmlDynamic(Node inner) {
+        this(inner, new XmlStructure.Hashes());
+    }
+
+    XmlDynamic(Node inner, XmlStructure.Hashes hashes) {
         super(inner);
+        this.hashes = hashes;
     }
 
     public XmlDynamic(InputSource xml) {
@@ -148,6 +204,39 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
         this(new StringReader(xml));
     }
 
+    /**
+     * Parses an xml byte stream, the character encoding is detected by the parser
+     * @param xml xml bytes, read fully but not closed
+     */
+    public XmlDynamic(InputStream xml) {
+        this(new InputSource(xml));
+    }
+
+    /**
+     * Parses xml bytes without copying them, the character encoding is detected by the parser
+     * @param xml xml bytes
+     */
+    public XmlDynamic(byte[] xml) {
+        this(new ByteArrayInputStream(xml));
+    }
+
+    /**
+     * Parses the remaining bytes of a buffer without copying or modifying it,
+     * the character encoding is detected by the parser
+     * @param xml xml bytes, heap or direct
+     */
+    public XmlDynamic(ByteBuffer xml) {
+        this(ByteBufferInputStream.of(xml));
+    }
+
+    /**
+     * Parses an xml file by memory-mapping it, the character encoding is detected by the parser
+     * @param xml xml file path
+     */
+    public XmlDynamic(Path xml) {
+        this(map(xml));
+    }
+
     /** Dynamic Xml values are always {@link String}s */
     @Override
     public boolean is(Class<?> type) {
@@ -190,55 +279,131 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
      * }</pre>
      * <br/>{@code xmlDynamic.get("product|message")} returns "hello"
      * <br/>{@code xmlDynamic.get("http://example.com/example::product|none::message")} also returns "hello"
+     * <p>
+     * Frequently used paths can be parsed once with {@link XmlPath#compile(String)} and passed as the key
+     * <br/>{@code xmlDynamic.get(XmlPath.compile("product|message"))} returns "hello"
      */
     @Override
     public Dynamic get(Object keyObject) {
-        final String keyToString = keyObject.toString();
-        if (keyToString.contains("|")) return get(keyToString, "|");
+        // paths are recorded per step, as the equivalent successive gets
+        if (keyObject instanceof XmlPath) return ((XmlPath) keyObject).evaluate(this);
 
-        if (children().allMatch(o -> false)) {
-            if (asString().isEmpty()) return new ParentAbsence.Empty<>(this, keyObject);
-            return new ParentAbsence.Barren<>(this, keyObject);
-        }
+        final String keyToString = keyObject.toString();
+        if (keyToString.contains(XmlPath.SEPARATOR)) return XmlPath.compile(keyToString).evaluate(this);
+        return Metrics.lookup(XmlPath.Step.parse(keyToString).select(this, keyObject));
+    }
 
-        final String key = keyToString.endsWith("[0]") ? keyToString.substring(0, keyToString.length() - 3) : keyToString;
+    /** @return child, or absence, of a single step key, unrecorded */
+    Dynamic find(Object keyObject) {
+        return XmlPath.Step.parse(keyObject.toString()).select(this, keyObject);
+    }
 
-        final String[] nsKey = key.split(NS_INDICATOR);
-        if (nsKey.length == 2) return getWithNamespace(nsKey[0], nsKey[1]);
+    /** As {@link #get(Object)} returning null when missing, without creating an absence */
+    @Override
+    public Dynamic getOrNull(Object keyObject) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(keyObject));
+        if (keyObject instanceof XmlPath) return ((XmlPath) keyObject).evaluateOrNull(this);
 
-        final Optional<? extends Dynamic> match;
+        final String keyToString = keyObject.toString();
+        if (keyToString.contains(XmlPath.SEPARATOR)) return XmlPath.compile(keyToString).evaluateOrNull(this);
+        return XmlPath.Step.parse(keyToString).selectOrNull(this);
+    }
 
-        if (key.isEmpty()) match = Optional.empty();
-        else if (key.startsWith("@")) match = attributes().filter(attr -> attr.key.equals(key)).findAny();
-        else if (key.endsWith("]")) match = elements().filter(el -> el.key.equals(key)).findAny();
-        else {
-            match = Stream.concat(elements().filter(el -> el.key.equals(key)),
-                attributes().filter(attr -> attr.key.equals("@"+ key))).findFirst();
-        }
+    protected Dynamic getWithNamespace(String namespace, String key) {
+        return get(namespace + NS_INDICATOR + key);
+    }
 
-        return match.map(Dynamic.class::cast).orElse(new ChildAbsence.Missing<>(this, keyObject));
+    /** Top-level instances always have their node as a child */
+    @Override
+    public boolean hasChildren() {
+        return true;
     }
 
-    protected Dynamic getWithNamespace(String namespace, String key) {
-        final Optional<? extends Dynamic> match;
+    /** @return {@link #asObject()} is an empty string, checked without serializing */
+    boolean hasEmptyValue() {
+        return false;
+    }
 
-        final Predicate<Node> nodeInNamespace;
-        if (NONE_NAMESPACE.equals(namespace)) nodeInNamespace = node -> node.getNamespaceURI() == null;
-        else nodeInNamespace = node -> namespace.equals(node.getNamespaceURI());
+    /**
+     * Evaluates an XPath expression against this node, or for top-level instances the owning document.
+     * Compiled expressions are cached per thread, so repeated expressions are compiled once per thread.
+     * <p>
+     * Element & attribute results are returned as dynamics keyed as they would be by {@link #get(Object)},
+     * with their parent chain from this instance where they are descendants. Other node types are not returned.
+     * Namespace prefixes are not bound, use {@code local-name()} & {@code namespace-uri()} functions
+     * <pre>{@code
+     *     xmlDynamic.xpath("//investment[@id='inv-2']").findFirst().get().key().asString(); // "investment[1]"
+     * }</pre>
+     * @param expression XPath expression evaluating to a node-set
+     * @return stream of element & attribute results in document order
+     * @throws RuntimeException invalid expression, or the expression does not produce a node-set
+     */
+    public Stream<Dynamic> xpath(String expression) {
+        final XPathExpression compiled = XPathCache.compile(expression);
+        final List<Dynamic> results = new ArrayList<>();
+        synchronized (inner.getOwnerDocument()) {
+            final Node context = this instanceof Child ? inner : inner.getOwnerDocument();
+            final NodeList nodes = uncheckedGet(() -> (NodeList) compiled.evaluate(context, XPathConstants.NODESET));
+            for (int i = 0; i < nodes.getLength(); i++) {
+                final Node node = nodes.item(i);
+                if ((node.getNodeType() == Node.ELEMENT_NODE || node.getNodeType() == Node.ATTRIBUTE_NODE)
+                    && node.getLocalName() != null) {
+                    results.add(descendant(node));
+                }
+            }
+        }
+        return results.stream();
+    }
 
-        if (key.isEmpty()) match = Optional.empty();
-        else if (key.startsWith("@")) {
-            match = attributesWith(nodeInNamespace).filter(attr -> attr.key.equals(key)).findAny();
+    /** @return input node wrapped with a parent chain from this, or as a direct child if not a descendant */
+    private Dynamic descendant(Node node) {
+        final Deque<Node> descent = new ArrayDeque<>();
+        Node ancestor = node;
+        while (ancestor != null && ancestor != inner) {
+            descent.push(ancestor);
+            ancestor = ancestor.getNodeType() == Node.ATTRIBUTE_NODE ?
+                ((Attr) ancestor).getOwnerElement() : ancestor.getParentNode();
         }
-        else if (key.endsWith("]")) {
-            match = elementsWith(nodeInNamespace).filter(el -> el.key.equals(key)).findAny();
+        if (ancestor == null) return keyedChild(this, node);
+
+        Dynamic current = this instanceof Child ? this : childElement(inner, 0);
+        while (!descent.isEmpty()) current = keyedChild((XmlDynamic) current, descent.pop());
+        return current;
+    }
+
+    /** @return child wrapper of the node with the key it would have as a child of the parent */
+    private static Child keyedChild(XmlDynamic parent, Node node) {
+        final String name = node.getLocalName();
+        int index = 0;
+        if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            final NamedNodeMap attributes = ((Attr) node).getOwnerElement().getAttributes();
+            for (int i = 0; i < attributes.getLength() && attributes.item(i) != node; i++) {
+                if (name.equals(attributes.item(i).getLocalName())) index++;
+            }
+            return new Child(node, parent, index == 0 ? "@" + name : "@" + name + '[' + index + ']');
         }
-        else {
-            match = Stream.concat(elementsWith(nodeInNamespace).filter(el -> el.key.equals(key)),
-                attributesWith(nodeInNamespace).filter(attr -> attr.key.equals("@"+ key))).findFirst();
+
+        for (Node sibling = node.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+            if (name.equals(sibling.getLocalName())) index++;
         }
+        return new Child(node, parent, index == 0 ? name : name + '[' + index + ']');
+    }
 
-        return match.map(Dynamic.class::cast).orElse(new ChildAbsence.Missing<>(this, namespace + NS_INDICATOR + key));
+    /**
+     * Returns a tree view of this XML for repeated reads. Each node indexes its children by key the first time it's
+     * read & caches its value, so subsequent reads of the same paths are hash lookups rather than DOM traversals.
+     * Subtrees are only materialized when read.
+     * <p>
+     * Keys, values & absences are as this instance's, ie {@code [i]} indices, {@code @attr} attributes & string values
+     * <pre>{@code
+     *     Dynamic tree = xmlDynamic.toDynamicTree();
+     *     tree.get("product|investment[1]|@id").asString(); // as xmlDynamic.get("product|investment[1]|@id")
+     * }</pre>
+     * The underlying document should not be modified after materialization.
+     * @return lazily materialized tree of this XML
+     */
+    public Dynamic toDynamicTree() {
+        return new XmlTree(this);
     }
 
     protected Stream<Child> attributes() {
@@ -271,64 +436,108 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
 
     @Override
     public String describe() {
-        if (isString() && asString().isEmpty())
-            return "Empty-Xml";
-
-        List<String> keys = Stream.concat(elements(), attributes())
-            .map(child -> child.key)
-            .collect(toList());
-
-        Map<String, Integer> keyLastIndex = new HashMap<>();
-        keys.forEach(key -> {
-            if (key.endsWith("]")) {
-                StringBuilder index = new StringBuilder();
-                for (int i = key.length()-2; i != -1; --i) {
-                    char c = key.charAt(i);
-                    if (c == '[') break;
-                    else index.append(c);
-                }
-                if (index.length() != 0) {
-                    keyLastIndex.put(key.substring(0, key.indexOf("[")), Integer.valueOf(index.toString()));
-                }
-            }
-        });
+        return "Xml[" + inner.getLocalName() + "]";
+    }
 
-        keyLastIndex.forEach((multiKey, maxIndex) -> {
-            keys.removeIf(key ->
-                key.equals(multiKey) || key.endsWith("]") && key.substring(0, key.indexOf("[")).equals(multiKey));
-            keys.add(multiKey + "[0.." + maxIndex + "]");
+    /**
+     * Describes child keys in a single pass, grouping repeated names with counts
+     * ie {@code Xml[name, @id, item[0..2]]}, unique keys in document order followed by repeated keys
+     */
+    private static String describeChildren(Node node) {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        final Map<String, Integer> keyLastIndex = new HashMap<>();
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getLocalName() != null) count(child.getLocalName(), counts, keyLastIndex);
+        }
+        final NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++)
+                count("@" + attributes.item(i).getLocalName(), counts, keyLastIndex);
+        }
+        if (counts.isEmpty()) return "Xml";
+
+        final StringJoiner keys = new StringJoiner(", ", "Xml[", "]");
+        counts.forEach((key, count) -> {
+            if (count == 1) keys.add(key);
         });
+        keyLastIndex.forEach((multiKey, maxIndex) -> keys.add(multiKey + "[0.." + maxIndex + "]"));
+        return keys.toString();
+    }
 
-        return keys.isEmpty() ? "Xml" : "Xml" + keys.toString();
+    private static void count(String key, Map<String, Integer> counts, Map<String, Integer> keyLastIndex) {
+        final Integer count = counts.get(key);
+        if (count == null) counts.put(key, 1);
+        else {
+            counts.put(key, count + 1);
+            keyLastIndex.put(key, count);
+        }
     }
 
     Child childElement(Node inner, int index) {
         return new Child(inner, this, index == 0 ? inner.getLocalName() : inner.getLocalName() + '[' + index + ']');
     }
 
+    /**
+     * Structural hash, see {@link #equals(Object)}. Element hashes are cached for the whole wrapped tree, so hashing
+     * a parent & then its children hashes each element once. Assumes the wrapped XML is not modified while in use
+     */
     @Override
     public int hashCode() {
-        final String toString = fullXml();
-        return FALLBACK_TO_STRING.equals(toString) ? super.hashCode() : toString.hashCode();
+        int hash = this.hash;
+        if (hash == 0) {
+            synchronized (inner.getOwnerDocument()) {
+                hash = XmlStructure.hash(inner, hashes.byElement());
+            }
+            if (hash == 0) hash = ZERO_HASH;
+            this.hash = hash;
+        }
+        return hash;
     }
 
+    /**
+     * Structural equality of the wrapped XML, comparing namespaces, local names, attributes ignoring order
+     * & content with adjacent text/CDATA coalesced & whitespace normalized. Namespace prefixes & declarations are
+     * ignored, as is whitespace only text such as indentation
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (o == null || getClass() != o.getClass() || hashCode() != o.hashCode()) return false;
+
+        final Node other = ((XmlDynamic) o).inner;
+        final Object document = inner.getOwnerDocument();
+        final Object otherDocument = other.getOwnerDocument();
+        if (document == otherDocument) {
+            synchronized (document) {
+                return XmlStructure.equal(inner, other);
+            }
+        }
 
-        final String otherAsString = ((XmlDynamic)o).fullXml();
-        return !FALLBACK_TO_STRING.equals(otherAsString) && otherAsString.equals(this.fullXml());
+        // consistent lock ordering to avoid deadlock with a concurrent other.equals(this)
+        final int order = Integer.compare(System.identityHashCode(document), System.identityHashCode(otherDocument));
+        final Object first = order < 0 ? document : otherDocument;
+        final Object second = order < 0 ? otherDocument : document;
+        synchronized (order == 0 ? XmlStructure.class : first) {
+            synchronized (first) {
+                synchronized (second) {
+                    return XmlStructure.equal(inner, other);
+                }
+            }
+        }
     }
 
+    /** @return this thread's reusable serializer for the inner node's DOM implementation */
     protected LSSerializer serializer() {
-        LSSerializer serializer = ((DOMImplementationLS) inner.getOwnerDocument()
+        final DOMImplementationLS implementation = (DOMImplementationLS) inner.getOwnerDocument()
             .getImplementation()
-            .getFeature("LS", "3.0"))
-            .createLSSerializer();
+            .getFeature("LS", "3.0");
 
-        serializer.getDomConfig().setParameter("xml-declaration", false);
-        return serializer;
+        ThreadSerializer cached = THREAD_SERIALIZER.get();
+        if (cached == null || cached.implementation != implementation) {
+            cached = new ThreadSerializer(implementation);
+            THREAD_SERIALIZER.set(cached);
+        }
+        return cached.serializer;
     }
 
     @Override
@@ -338,6 +547,21 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
         }
     }
 
+    /**
+     * Value characters, equal in content to {@link #asObject()}. Element text is returned without copying, for large
+     * text or CDATA values prefer this, or {@link #textReader()}, to copying into a new String.
+     * Conversions from the result, ie {@code Converter.convert(xml.asCharSequence()).intoLong()}, parse it directly
+     * @return value characters
+     */
+    public CharSequence asCharSequence() {
+        return asObject();
+    }
+
+    /** @return reader of the {@link #asCharSequence()} value */
+    public Reader textReader() {
+        return new CharSequenceReader(asCharSequence());
+    }
+
     /** @return this dynamic key->value entry as an XML string */
     public String fullXml() {
         try {
@@ -348,34 +572,135 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
         catch (RuntimeException ex) { return FALLBACK_TO_STRING; }
     }
 
+    /**
+     * Streams this dynamic key->value entry as XML, as {@link #fullXml()} without building the whole String
+     * @param out XML destination, not flushed or closed
+     */
+    public void writeTo(Appendable out) {
+        final Writer writer = out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+        synchronized (inner.getOwnerDocument()) {
+            final DOMImplementationLS implementation = (DOMImplementationLS) inner.getOwnerDocument()
+                .getImplementation()
+                .getFeature("LS", "3.0");
+            final LSOutput output = implementation.createLSOutput();
+            output.setCharacterStream(writer);
+            serializer().write(inner, output);
+        }
+    }
+
     @Override
     public String toString() {
         return keyLiteral() + ":"+ describe();
     }
 
+    private static class ThreadSerializer {
+
+        final DOMImplementationLS implementation;
+        final LSSerializer serializer;
+
+        ThreadSerializer(DOMImplementationLS implementation) {
+            this.implementation = implementation;
+            this.serializer = implementation.createLSSerializer();
+            serializer.getDomConfig().setParameter("xml-declaration", false);
+        }
+    }
+
+    /** Writer adapter for plain Appendables */
+    private static class AppendableWriter extends Writer {
+
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.append(CharBuffer.wrap(chars, offset, length));
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            out.append(str, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
     static class Child extends XmlDynamic implements DynamicChild {
 
         private final Dynamic parent;
         private final String key;
+        private DynamicPath path;
+        private String description;
 
         Child(Node inner, Dynamic parent, String key) {
-            super(inner);
+            super(inner, parent instanceof XmlDynamic ? ((XmlDynamic) parent).hashes : new XmlStructure.Hashes());
             this.parent = parent;
             this.key = requireNonNull(key);
         }
 
         @Override
         public String asObject() {
+            return asCharSequence().toString();
+        }
+
+        /** Text & CDATA values are the DOM's own character data, inner XML is built without a final String copy */
+        @Override
+        public CharSequence asCharSequence() {
             synchronized (inner.getOwnerDocument()) {
                 return Optional.ofNullable(inner.getFirstChild())
-                    .map(Node::getNodeValue)
-                    .orElseGet(() -> elements().map(Child::fullXml)
-                        .map(String::trim)
-                        .reduce((s1, s2) -> s1 + s2)
-                        .orElse(""));
+                    .<CharSequence>map(Node::getNodeValue)
+                    .orElseGet(() -> {
+                        final StringBuilder innerXml = new StringBuilder();
+                        elements().forEach(element -> innerXml.append(element.fullXml().trim()));
+                        return innerXml;
+                    });
+            }
+        }
+
+        @Override
+        public boolean hasChildren() {
+            synchronized (inner.getOwnerDocument()) {
+                final NamedNodeMap attributes = inner.getAttributes();
+                if (attributes != null && attributes.getLength() > 0) return true;
+                for (Node child = inner.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getLocalName() != null) return true;
+                }
+                return false;
             }
         }
 
+        @Override
+        boolean hasEmptyValue() {
+            synchronized (inner.getOwnerDocument()) {
+                final Node first = inner.getFirstChild();
+                if (first == null) return true;
+                if (first.getNodeValue() != null) return first.getNodeValue().isEmpty();
+                for (Node child = first; child != null; child = child.getNextSibling()) {
+                    if (child.getLocalName() != null) return false;
+                }
+                return true;
+            }
+        }
+
+        /** Cached by this instance, so assumes the wrapped XML is not modified while in use */
+        @Override
+        public String describe() {
+            String description = this.description;
+            if (description == null) {
+                synchronized (inner.getOwnerDocument()) {
+                    description = hasEmptyValue() ? "Empty-Xml" : describeChildren(inner);
+                }
+                this.description = description;
+            }
+            return description;
+        }
+
         @Override
         protected Stream<Child> attributesWith(Predicate<Node> predicate) {
             final Map<String, Integer> keyLastIndex = new HashMap<>();
@@ -406,6 +731,11 @@ public class XmlDynamic extends AbstractDynamic<Node> implements Describer {
             return parent;
         }
 
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
         @Override
         public Object keyLiteral() {
             return key;
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Parses {@link XmlDynamic}s with a pool of reusable parsers, for high volumes of XML messages.
+ * Batches are parsed in parallel with an executor, the common fork-join pool by default, reading ahead at most
+ * one message per pooled parser so any size of batch, or an unending stream, is parsed in bounded memory.
+ * Parsing is as {@link XmlDynamic#XmlDynamic(String)}, including {@link DynamicMetrics} & JFR events,
+ * malformed xml fails while recoverable errors are ignored.
+ * <pre>{@code
+ *     XmlDynamicParser parser = new XmlDynamicParser();
+ *     XmlDynamic single = parser.parse(xmlMessage);
+ *     List<XmlDynamic> batch = parser.parseAll(xmlMessages.stream()).collect(toList());
+ *
+ *     parser.stats().latencyPercentile(0.99, TimeUnit.MICROSECONDS);
+ * }</pre>
+ * Instances are thread-safe, each pooled parser is used by a single thread at a time.
+ *
+ * @author Alex Butler
+ */
+public class XmlDynamicParser {
+
+    /** latencies are recorded in power of 2 nanosecond buckets */
+    private static final int LATENCY_BUCKETS = 64;
+
+    private final DocumentBuilderPool parsers;
+    private final Executor executor;
+    private final int poolSize;
+    private final long createdNanos = System.nanoTime();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS];
+
+    /** Parser pooling a parser per available processor, parsing batches with the common fork-join pool */
+    public XmlDynamicParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parser pooling a parser per available processor
+     * @param executor executor used to parse batches
+     */
+    public XmlDynamicParser(Executor executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executor executor used to parse batches
+     * @param poolSize maximum number of idle parsers retained for reuse & messages parsed ahead by
+     *                 {@link #parseAll(Stream)}, usually the number of threads that will be parsing concurrently
+     */
+    public XmlDynamicParser(Executor executor, int poolSize) {
+        if (executor == null) throw new NullPointerException("executor");
+        this.parsers = new DocumentBuilderPool(poolSize);
+        this.executor = executor;
+        this.poolSize = poolSize;
+        for (int i = 0; i < LATENCY_BUCKETS; i++)
+            latencyBuckets[i] = new LongAdder();
+    }
+
+    /**
+     * @param xml xml string
+     * @return parsed xml
+     */
+    public XmlDynamic parse(String xml) {
+        return parse(new InputSource(new StringReader(xml)));
+    }
+
+    /**
+     * Parses xml bytes without copying them, the character encoding is detected by the parser
+     * @param xml xml bytes
+     * @return parsed xml
+     */
+    public XmlDynamic parse(byte[] xml) {
+        return parse(new InputSource(new ByteArrayInputStream(xml)));
+    }
+
+    private XmlDynamic parse(InputSource xml) {
+        final long start = System.nanoTime();
+        final Node node;
+        try {
+            node = XmlDynamic.parse(parsers, xml);
+        }
+        catch (RuntimeException ex) {
+            failed.increment();
+            throw ex;
+        }
+        record(System.nanoTime() - start);
+        return new XmlDynamic(node);
+    }
+
+    /**
+     * Parses each input on this parser's executor, the returned stream is in input order and blocks on each element
+     * until it has been parsed. Inputs are read lazily as the result is consumed, parsing up to the pool size ahead
+     * @param xmls {@link String} or {@code byte[]} xml messages
+     * @return stream of parsed xml, throwing the first parse failure in input order
+     * @throws IllegalArgumentException an input is not a {@link String} or {@code byte[]}
+     */
+    public Stream<XmlDynamic> parseAll(Stream<?> xmls) {
+        final Iterator<XmlDynamic> parsed = new ReadAhead(xmls.iterator());
+        return StreamSupport.stream(spliteratorUnknownSize(parsed, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(xmls::close);
+    }
+
+    /** Parses inputs asynchronously keeping at most {@link #poolSize} in flight, returning them in order */
+    private class ReadAhead implements Iterator<XmlDynamic> {
+
+        private final Iterator<?> inputs;
+        private final Deque<CompletableFuture<XmlDynamic>> parsing = new ArrayDeque<>(poolSize);
+
+        ReadAhead(Iterator<?> inputs) {
+            this.inputs = inputs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (parsing.size() < poolSize && inputs.hasNext()) {
+                final Object xml = inputs.next();
+                parsing.add(CompletableFuture.supplyAsync(() -> parseObject(xml), executor));
+            }
+            return !parsing.isEmpty();
+        }
+
+        @Override
+        public XmlDynamic next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return join(parsing.poll());
+        }
+    }
+
+    private XmlDynamic parseObject(Object xml) {
+        if (xml instanceof String) return parse((String) xml);
+        if (xml instanceof byte[]) return parse((byte[]) xml);
+        throw new IllegalArgumentException("Expected String or byte[] xml, was "
+            + (xml == null ? "null" : xml.getClass().getName()));
+    }
+
+    private static XmlDynamic join(CompletableFuture<XmlDynamic> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private void record(long nanos) {
+        parsed.increment();
+        totalNanos.add(nanos);
+        latencyBuckets[LATENCY_BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+    }
+
+    /** @return snapshot of parsing statistics since this parser was created */
+    public Stats stats() {
+        final long[] buckets = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++)
+            buckets[i] = latencyBuckets[i].sum();
+        return new Stats(parsed.sum(), failed.sum(), totalNanos.sum(), System.nanoTime() - createdNanos, buckets);
+    }
+
+    /**
+     * Immutable snapshot of {@link XmlDynamicParser} statistics. Latencies are measured per successful parse,
+     * and recorded in a histogram of power of 2 nanosecond buckets, so percentiles are upper bounds
+     * accurate to a factor of 2
+     */
+    public static class Stats {
+
+        private final long parsed;
+        private final long failed;
+        private final long totalNanos;
+        private final long elapsedNanos;
+        private final long[] latencyBuckets;
+
+        private Stats(long parsed, long failed, long totalNanos, long elapsedNanos, long[] latencyBuckets) {
+            this.parsed = parsed;
+            this.failed = failed;
+            this.totalNanos = totalNanos;
+            this.elapsedNanos = elapsedNanos;
+            this.latencyBuckets = latencyBuckets;
+        }
+
+        /** @return number of successfully parsed documents */
+        public long parsed() {
+            return parsed;
+        }
+
+        /** @return number of documents that failed to parse */
+        public long failed() {
+            return failed;
+        }
+
+        /** @return successfully parsed documents per second, since the parser was created */
+        public double throughputPerSecond() {
+            return elapsedNanos == 0 ? 0 : parsed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        /**
+         * @param unit result unit
+         * @return mean parse latency
+         */
+        public double meanLatency(TimeUnit unit) {
+            return parsed == 0 ? 0 : (double) totalNanos / parsed / unit.toNanos(1);
+        }
+
+        /**
+         * @param percentile in range (0, 1], ie 0.99
+         * @param unit result unit
+         * @return upper bound of the latency bucket containing the percentile, 0 if nothing has been parsed
+         */
+        public long latencyPercentile(double percentile, TimeUnit unit) {
+            if (percentile <= 0 || percentile > 1)
+                throw new IllegalArgumentException("percentile must be in range (0, 1], was " + percentile);
+            if (parsed == 0) return 0;
+
+            final long rank = (long) Math.ceil(percentile * parsed);
+            long count = 0;
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                count += latencyBuckets[i];
+                if (count >= rank) return unit.convert(bucketUpperBoundNanos(i), TimeUnit.NANOSECONDS);
+            }
+            return unit.convert(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        /** @return latency histogram, bucket i counts parses taking [2^i, 2^(i+1)) nanoseconds */
+        public long[] latencyHistogram() {
+            return latencyBuckets.clone();
+        }
+
+        private static long bucketUpperBoundNanos(int bucket) {
+            return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "XmlDynamicParser.Stats{parsed=" + parsed + ", failed=" + failed
+                + ", throughput=" + String.format("%.1f/s", throughputPerSecond())
+                + ", mean=" + String.format("%.1fus", meanLatency(TimeUnit.MICROSECONDS))
+                + ", p99<=" + latencyPercentile(0.99, TimeUnit.MICROSECONDS) + "us}";
+        }
+    }
+}
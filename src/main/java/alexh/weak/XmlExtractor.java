@@ -0,0 +1,335 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import static alexh.Unchecker.unchecked;
+import static alexh.Unchecker.uncheckedGet;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Compiled set of {@link XmlDynamic} style '|' separated paths, extracted from XML in a single streaming pass
+ * without building a DOM. Subtrees not on any path are skipped, and reading stops once every path is resolved.
+ * <p>
+ * Paths use the same syntax as {@link XmlDynamic#get(Object)}, ie {@code [i]} indices, {@code @attr} attributes
+ * & {@code ns::name} namespaces
+ * <pre>{@code
+ *     XmlExtractor extractor = XmlExtractor.compile("order|id", "order|customer|@ref", "order|lines|line[1]|sku");
+ *     Map<String, String> values = extractor.extract(xmlMessage);
+ *     values.get("order|customer|@ref"); // as new XmlDynamic(xmlMessage).get("order|customer|@ref").asString()
+ * }</pre>
+ * Element values are the value of their first child node, as with {@link XmlDynamic}: the leading text, the first
+ * CDATA section, or a leading comment or processing instruction's data. The differences from {@link XmlDynamic} are
+ * <ul>
+ *   <li>Elements starting with a child element extract as an empty string, as no inner XML is built</li>
+ *   <li>Adjacent CDATA sections are joined, the parser may report one section in parts</li>
+ *   <li>With a StAX implementation unable to report CDATA separately, leading text & CDATA are joined</li>
+ * </ul>
+ * Paths not found in the input are absent from the result.
+ * <p>
+ * Instances are immutable & thread-safe, compile once and reuse.
+ *
+ * @author Alex Butler
+ */
+public class XmlExtractor {
+
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        // CDATA sections are separate DOM nodes, so reported apart from text where the implementation allows
+        if (INPUT_FACTORY.isPropertySupported(REPORT_CDATA)) INPUT_FACTORY.setProperty(REPORT_CDATA, true);
+    }
+
+    /**
+     * @param paths '|' separated {@link XmlDynamic} paths
+     * @return extractor for the input paths
+     */
+    public static XmlExtractor compile(String... paths) {
+        return compile(Arrays.asList(paths));
+    }
+
+    /**
+     * @param paths '|' separated {@link XmlDynamic} paths
+     * @return extractor for the input paths
+     */
+    public static XmlExtractor compile(Collection<String> paths) {
+        return new XmlExtractor(paths);
+    }
+
+    private final PathNode root = new PathNode(null, -1);
+    private final int nodeCount;
+    private final int terminalCount;
+
+    private XmlExtractor(Collection<String> paths) {
+        int nextId = 0;
+        int terminals = 0;
+        for (String path : paths) {
+            PathNode node = root;
+            for (String key : KeyPath.split(path, XmlPath.SEPARATOR)) {
+                final XmlPath.Step step = XmlPath.Step.parse(key);
+                PathNode next = node.child(step);
+                if (next == null) {
+                    next = new PathNode(step, nextId++);
+                    node.children.add(next);
+                }
+                node = next;
+            }
+            if (node.paths.isEmpty()) terminals++;
+            node.paths.add(path);
+        }
+        this.nodeCount = nextId;
+        this.terminalCount = terminals;
+    }
+
+    /**
+     * @param xml xml string
+     * @return map of compiled path -> value, for each path found in the input
+     */
+    public Map<String, String> extract(String xml) {
+        return extract(new StringReader(xml));
+    }
+
+    /**
+     * @param xml xml character stream, read until all paths are resolved
+     * @return map of compiled path -> value, for each path found in the input
+     */
+    public Map<String, String> extract(Reader xml) {
+        final XMLStreamReader reader = uncheckedGet(() -> INPUT_FACTORY.createXMLStreamReader(xml));
+        try { return uncheckedGet(() -> extract(reader)); }
+        finally { unchecked(reader::close); }
+    }
+
+    /**
+     * @param xml xml byte stream, read until all paths are resolved, the character encoding is detected by the parser
+     * @return map of compiled path -> value, for each path found in the input
+     */
+    public Map<String, String> extract(InputStream xml) {
+        final XMLStreamReader reader = uncheckedGet(() -> INPUT_FACTORY.createXMLStreamReader(xml));
+        try { return uncheckedGet(() -> extract(reader)); }
+        finally { unchecked(reader::close); }
+    }
+
+    private Map<String, String> extract(XMLStreamReader reader) throws XMLStreamException {
+        final Map<String, String> values = new HashMap<>();
+        final Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame(Collections.singletonList(root), nodeCount));
+
+        final TextRun text = new TextRun();
+        int resolved = 0;
+        int skipDepth = 0;
+        while (resolved < terminalCount && reader.hasNext()) {
+            final int event = reader.next();
+
+            if (skipDepth > 0) {
+                if (event == XMLStreamConstants.START_ELEMENT) skipDepth++;
+                else if (event == XMLStreamConstants.END_ELEMENT) skipDepth--;
+                continue;
+            }
+
+            final int textKind = event == XMLStreamConstants.SPACE ? XMLStreamConstants.CHARACTERS : event;
+            if (text.pending() && text.kind != textKind) resolved += frames.peek().firstChild(values, text.take());
+
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final Frame parent = frames.peek();
+                    resolved += parent.firstChild(values, "");
+                    final List<PathNode> matched = parent.matchElement(namespace(reader.getNamespaceURI()),
+                        reader.getLocalName());
+                    if (matched.isEmpty()) {
+                        skipDepth = 1;
+                        break;
+                    }
+                    final Frame frame = new Frame(matched, nodeCount);
+                    resolved += frame.matchAttributes(reader, values);
+                    frames.push(frame);
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (frames.peek().awaitingFirstChild) text.add(textKind, reader.getText());
+                    break;
+
+                case XMLStreamConstants.COMMENT:
+                    resolved += frames.peek().firstChild(values, reader.getText());
+                    break;
+
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    resolved += frames.peek().firstChild(values, reader.getPIData());
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    final Frame ended = frames.pop();
+                    resolved += ended.firstChild(values, "");
+                    resolved += ended.fallbacks.size();
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static String namespace(String uri) {
+        return uri == null || uri.isEmpty() ? null : uri;
+    }
+
+    /** Automaton state, the paths sharing a prefix share a node */
+    private static class PathNode {
+
+        final XmlPath.Step step;
+        final int id;
+        final List<PathNode> children = new ArrayList<>();
+        final List<String> paths = new ArrayList<>(1);
+
+        PathNode(XmlPath.Step step, int id) {
+            this.step = step;
+            this.id = id;
+        }
+
+        PathNode child(XmlPath.Step step) {
+            for (PathNode child : children) {
+                if (child.step.key.equals(step.key)) return child;
+            }
+            return null;
+        }
+
+        boolean isTerminal() {
+            return !paths.isEmpty();
+        }
+    }
+
+    /**
+     * Adjacent character events of one DOM text or CDATA node, which the parser may report in parts, ie around
+     * entity references
+     */
+    private static class TextRun {
+
+        /** event kind of the pending run */
+        int kind = -1;
+        private String first;
+        private StringBuilder joined;
+
+        boolean pending() {
+            return kind != -1;
+        }
+
+        void add(int kind, String text) {
+            if (!pending()) {
+                this.kind = kind;
+                first = text;
+            }
+            else {
+                if (joined == null) joined = new StringBuilder(first);
+                joined.append(text);
+            }
+        }
+
+        /** @return run text, clearing it */
+        String take() {
+            final String text = joined != null ? joined.toString() : first;
+            kind = -1;
+            first = null;
+            joined = null;
+            return text;
+        }
+    }
+
+    /** An open element matching one or more path nodes */
+    private static class Frame {
+
+        final List<PathNode> nodes;
+        final int[] siblingCounts;
+        boolean awaitingFirstChild = true;
+        /**
+         * attribute fallback nodes with values from this element, resolved when it ends without a child element
+         * overriding them
+         */
+        List<PathNode> fallbacks = Collections.emptyList();
+
+        Frame(List<PathNode> nodes, int nodeCount) {
+            this.nodes = nodes;
+            this.siblingCounts = new int[nodeCount];
+        }
+
+        List<PathNode> matchElement(String namespace, String localName) {
+            List<PathNode> matched = Collections.emptyList();
+            for (PathNode node : nodes) {
+                for (PathNode child : node.children) {
+                    if (child.step.attribute || !child.step.matchesName(namespace, localName)) continue;
+                    if (siblingCounts[child.id]++ == child.step.index) {
+                        if (matched.isEmpty()) matched = new ArrayList<>(2);
+                        matched.add(child);
+                        // the element overrides the attribute, & resolves the path itself
+                        fallbacks.remove(child);
+                    }
+                }
+            }
+            return matched;
+        }
+
+        /**
+         * Records matching attribute values, attribute fallbacks are added to {@link #fallbacks}
+         * @return number of paths newly resolved
+         */
+        int matchAttributes(XMLStreamReader reader, Map<String, String> values) {
+            int resolved = 0;
+            for (PathNode node : nodes) {
+                for (PathNode child : node.children) {
+                    if (!child.isTerminal() || !(child.step.attribute || child.step.attributeFallback)) continue;
+
+                    int count = 0;
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        if (!child.step.matchesName(namespace(reader.getAttributeNamespace(i)),
+                            reader.getAttributeLocalName(i))) continue;
+
+                        if (count++ == child.step.index) {
+                            final String value = reader.getAttributeValue(i);
+                            for (String path : child.paths) values.put(path, value);
+                            if (child.step.attribute) resolved++;
+                            else {
+                                if (fallbacks.isEmpty()) fallbacks = new ArrayList<>(2);
+                                fallbacks.add(child);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            return resolved;
+        }
+
+        /** Records the first child value for terminal nodes, @return number of paths newly resolved */
+        int firstChild(Map<String, String> values, String value) {
+            if (!awaitingFirstChild) return 0;
+            awaitingFirstChild = false;
+
+            int resolved = 0;
+            for (PathNode node : nodes) {
+                if (node.step == null || node.step.attribute || !node.isTerminal()) continue;
+                for (String path : node.paths) values.put(path, value);
+                resolved++;
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Compiled '|' separated {@link XmlDynamic} path. Namespaces, local names, indices & attribute markers are parsed
+ * once, so evaluating doesn't split or allocate key strings per node. Instances are immutable & thread-safe, compile
+ * once and use with any number of documents
+ * <pre>{@code
+ *     static final XmlPath INVESTMENT_ID = XmlPath.compile("product|investment[1]|@id");
+ *     ...
+ *     xmlDynamic.get(INVESTMENT_ID).asString(); // as xmlDynamic.get("product|investment[1]|@id").asString()
+ * }</pre>
+ * @see XmlDynamic#get(Object)
+ *
+ * @author Alex Butler
+ */
+public class XmlPath {
+
+    static final String SEPARATOR = "|";
+    static final String NONE_NAMESPACE = "none";
+    static final String NS_INDICATOR = "::";
+
+    /**
+     * @param path '|' separated {@link XmlDynamic} path
+     * @return compiled path
+     */
+    public static XmlPath compile(String path) {
+        return new XmlPath(path);
+    }
+
+    private final String path;
+    private final Step[] steps;
+
+    private XmlPath(String path) {
+        this.path = path;
+        final String[] keys = KeyPath.split(path, SEPARATOR);
+        this.steps = new Step[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            steps[i] = Step.parse(keys[i]);
+    }
+
+    /**
+     * Each step is recorded by any registered {@link DynamicMetrics}, as the equivalent successive gets would be
+     * @return result of selecting this path from the input, as {@code from.get(path.toString())}
+     */
+    Dynamic evaluate(Dynamic from) {
+        Dynamic result = from;
+        for (Step step : steps) {
+            result = result instanceof XmlDynamic ?
+                Metrics.lookup(step.select((XmlDynamic) result, step.key)) :
+                result.get(step.key);
+        }
+        return result;
+    }
+
+    /** @return present result of selecting this path from the input, or null, without creating absences */
+    Dynamic evaluateOrNull(Dynamic from) {
+        Dynamic result = from;
+        for (Step step : steps) {
+            result = result instanceof XmlDynamic ? step.selectOrNull((XmlDynamic) result) : result.getOrNull(step.key);
+            if (result == null) return null;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return path.equals(((XmlPath) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    /** @return the uncompiled path */
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    static boolean sameName(String a, String b) {
+        return a == b || a != null && a.equals(b);
+    }
+
+    /** Single parsed key, ie "ns::name[1]" */
+    static class Step {
+
+        static Step parse(String key) {
+            String name = key.endsWith("[0]") ? key.substring(0, key.length() - 3) : key;
+
+            boolean namespaced = false;
+            String namespace = null;
+            final int nsIndex = name.indexOf(NS_INDICATOR);
+            if (nsIndex != -1 && nsIndex + NS_INDICATOR.length() < name.length()) {
+                namespaced = true;
+                namespace = name.substring(0, nsIndex);
+                if (NONE_NAMESPACE.equals(namespace)) namespace = null;
+                name = name.substring(nsIndex + NS_INDICATOR.length());
+            }
+            final String missingKey = namespaced ? key.substring(0, nsIndex + NS_INDICATOR.length()) + name : key;
+
+            final boolean attribute = name.startsWith("@");
+            if (attribute) name = name.substring(1);
+
+            int index = 0;
+            boolean indexed = false;
+            if (name.endsWith("]")) {
+                indexed = true;
+                index = -1;
+                final int open = name.lastIndexOf('[');
+                if (open != -1) {
+                    final String indexString = name.substring(open + 1, name.length() - 1);
+                    try {
+                        final int parsed = Integer.parseInt(indexString);
+                        // only canonical indices are ever keys
+                        if (parsed > 0 && Integer.toString(parsed).equals(indexString)) index = parsed;
+                    }
+                    catch (NumberFormatException ex) { /* never matches */ }
+                    name = name.substring(0, open);
+                }
+            }
+            if (name.isEmpty()) index = -1;
+
+            return new Step(key, missingKey, !namespaced, namespace, name.intern(), index, attribute, indexed);
+        }
+
+        /** the key as given */
+        final String key;
+        /** key used when missing, as XmlDynamic#get namespaced keys drop [0] suffixes */
+        final String missingKey;
+        final boolean anyNamespace;
+        /** null for none */
+        final String namespace;
+        final String localName;
+        /** -1 never matches */
+        final int index;
+        /** explicit '@' attribute key */
+        final boolean attribute;
+        /** plain un-indexed keys fall back to attributes, elements take precedence */
+        final boolean attributeFallback;
+        private final String elementKey;
+        private final String attributeKey;
+
+        private Step(String key, String missingKey, boolean anyNamespace, String namespace, String localName,
+                     int index, boolean attribute, boolean indexed) {
+            this.key = key;
+            this.missingKey = missingKey;
+            this.anyNamespace = anyNamespace;
+            this.namespace = namespace;
+            this.localName = localName;
+            this.index = index;
+            this.attribute = attribute;
+            this.attributeFallback = !attribute && !indexed;
+            this.elementKey = index > 0 ? localName + '[' + index + ']' : localName;
+            this.attributeKey = '@' + elementKey;
+        }
+
+        boolean matchesName(String namespace, String localName) {
+            return sameName(this.localName, localName)
+                && (anyNamespace || sameName(this.namespace, namespace == null || namespace.isEmpty() ? null : namespace));
+        }
+
+        private boolean matches(Node node) {
+            return matchesName(node.getNamespaceURI(), node.getLocalName());
+        }
+
+        /**
+         * Selects this step's child from the parent, as {@link XmlDynamic#get(Object)}
+         * @param missingKey key to report if the child is missing, when not namespaced
+         */
+        Dynamic select(XmlDynamic parent, Object missingKey) {
+            final Dynamic child = selectOrNull(parent);
+            if (child != null) return child;
+
+            synchronized (parent.inner.getOwnerDocument()) {
+                if (!parent.hasChildren()) {
+                    if (parent.hasEmptyValue()) return new ParentAbsence.Empty<>(parent, missingKey);
+                    return new ParentAbsence.Barren<>(parent, missingKey);
+                }
+            }
+            return new ChildAbsence.Missing<>(parent, anyNamespace ? missingKey : this.missingKey);
+        }
+
+        /** @return this step's child of the parent, as {@link XmlDynamic#getOrNull(Object)} */
+        XmlDynamic.Child selectOrNull(XmlDynamic parent) {
+            final Node inner = parent.inner;
+            synchronized (inner.getOwnerDocument()) {
+                if (!attribute && index >= 0) {
+                    if (!(parent instanceof XmlDynamic.Child)) {
+                        if (index == 0 && matches(inner)) return parent.childElement(inner, 0);
+                    }
+                    else {
+                        int count = 0;
+                        for (Node child = inner.getFirstChild(); child != null; child = child.getNextSibling()) {
+                            if (child.getLocalName() == null || !matches(child)) continue;
+                            if (count++ == index) return new XmlDynamic.Child(child, parent, elementKey);
+                        }
+                    }
+                }
+
+                if ((attribute || attributeFallback) && index >= 0 && parent instanceof XmlDynamic.Child) {
+                    final NamedNodeMap attributes = inner.getAttributes();
+                    if (attributes != null) {
+                        int count = 0;
+                        for (int i = 0; i < attributes.getLength(); i++) {
+                            final Node attr = attributes.item(i);
+                            if (!matches(attr)) continue;
+                            if (count++ == index) return new XmlDynamic.Child(attr, parent, attributeKey);
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Structural XML node equality & hashing, without serialization. Nodes are compared by namespace URI, local name,
+ * attributes (ignoring order & namespace declarations) and content. Adjacent text & CDATA sections are coalesced with
+ * whitespace normalized as XPath {@code normalize-space()}, ie trimmed with inner runs collapsed to a single space, so
+ * whitespace only text, like indentation, is ignored.
+ * <p>
+ * Nothing is stored on the nodes themselves. Element subtree hashes are cached in a map owned by the caller, so a
+ * parent & its descendants are each hashed once while the document is unmodified.
+ * Callers must hold the owner document locks.
+ */
+class XmlStructure {
+
+    private static final String XMLNS_URI = "http://www.w3.org/2000/xmlns/";
+
+    /** Element subtree hashes of a tree, shared by its wrappers so each element is hashed once */
+    static final class Hashes {
+        private Map<Node, Integer> byElement;
+
+        /** @return hashes by element, created on first use */
+        Map<Node, Integer> byElement() {
+            if (byElement == null) byElement = new IdentityHashMap<>();
+            return byElement;
+        }
+    }
+
+    /**
+     * @param elementHashes cache of element subtree hashes, read & filled by this call. Only read for elements
+     * @return structural hash of the node
+     */
+    static int hash(Node node, Map<Node, Integer> elementHashes) {
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            final Integer cached = elementHashes.get(node);
+            if (cached != null) return cached;
+        }
+
+        int hash = node.getNodeType();
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                hash = 31 * hash + Objects.hashCode(node.getNamespaceURI());
+                hash = 31 * hash + Objects.hashCode(localName(node));
+                hash = 31 * hash + attributesHash(node);
+                hash = 31 * hash + contentHash(node, elementHashes);
+                elementHashes.put(node, hash);
+                break;
+            case Node.ATTRIBUTE_NODE:
+                hash = 31 * hash + Objects.hashCode(node.getNamespaceURI());
+                hash = 31 * hash + Objects.hashCode(localName(node));
+                hash = 31 * hash + Objects.hashCode(node.getNodeValue());
+                break;
+            case Node.DOCUMENT_NODE:
+            case Node.DOCUMENT_FRAGMENT_NODE:
+                hash = 31 * hash + contentHash(node, elementHashes);
+                break;
+            default:
+                hash = 31 * hash + Objects.hashCode(node.getNodeName());
+                hash = 31 * hash + Objects.hashCode(node.getNodeValue());
+        }
+        return hash;
+    }
+
+    static boolean equal(Node a, Node b) {
+        if (a == b) return true;
+        if (a.getNodeType() != b.getNodeType()) return false;
+
+        switch (a.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                return Objects.equals(a.getNamespaceURI(), b.getNamespaceURI())
+                    && Objects.equals(localName(a), localName(b))
+                    && attributesEqual(a, b)
+                    && contentEqual(a, b);
+            case Node.ATTRIBUTE_NODE:
+                return Objects.equals(a.getNamespaceURI(), b.getNamespaceURI())
+                    && Objects.equals(localName(a), localName(b))
+                    && Objects.equals(a.getNodeValue(), b.getNodeValue());
+            case Node.DOCUMENT_NODE:
+            case Node.DOCUMENT_FRAGMENT_NODE:
+                return contentEqual(a, b);
+            default:
+                return Objects.equals(a.getNodeName(), b.getNodeName())
+                    && Objects.equals(a.getNodeValue(), b.getNodeValue());
+        }
+    }
+
+    private static String localName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static boolean isText(Node node) {
+        return node != null
+            && (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE);
+    }
+
+    /** XML whitespace, as normalize-space() */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isNamespaceDeclaration(Node attribute) {
+        return XMLNS_URI.equals(attribute.getNamespaceURI());
+    }
+
+    /** Order independent sum of attribute hashes */
+    private static int attributesHash(Node element) {
+        final NamedNodeMap attributes = element.getAttributes();
+        int hash = 0;
+        for (int i = 0; i < attributes.getLength(); i++) {
+            final Node attribute = attributes.item(i);
+            if (!isNamespaceDeclaration(attribute)) hash += hash(attribute, null);
+        }
+        return hash;
+    }
+
+    private static boolean attributesEqual(Node a, Node b) {
+        final NamedNodeMap aAttributes = a.getAttributes();
+        final NamedNodeMap bAttributes = b.getAttributes();
+
+        int aCount = 0;
+        for (int i = 0; i < aAttributes.getLength(); i++) {
+            final Node attribute = aAttributes.item(i);
+            if (isNamespaceDeclaration(attribute)) continue;
+            aCount++;
+
+            final Node other = attribute.getLocalName() != null ?
+                bAttributes.getNamedItemNS(attribute.getNamespaceURI(), attribute.getLocalName()) :
+                bAttributes.getNamedItem(attribute.getNodeName());
+            if (other == null || !Objects.equals(attribute.getNodeValue(), other.getNodeValue())) return false;
+        }
+
+        int bCount = 0;
+        for (int i = 0; i < bAttributes.getLength(); i++) {
+            if (!isNamespaceDeclaration(bAttributes.item(i))) bCount++;
+        }
+        return aCount == bCount;
+    }
+
+    /**
+     * Appends the normalized text of the text & CDATA run starting at the input node, if any
+     * @return first node after the run
+     */
+    private static Node normalizedText(Node node, StringBuilder out) {
+        boolean space = false;
+        for (; isText(node); node = node.getNextSibling()) {
+            final String text = node.getNodeValue();
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (isWhitespace(c)) space = out.length() > 0;
+                else {
+                    if (space) out.append(' ');
+                    out.append(c);
+                    space = false;
+                }
+            }
+        }
+        return node;
+    }
+
+    /** Hash of child nodes & non-empty normalized text runs, in order */
+    private static int contentHash(Node parent, Map<Node, Integer> elementHashes) {
+        final StringBuilder text = new StringBuilder();
+        int hash = 1;
+        Node child = parent.getFirstChild();
+        while (child != null) {
+            if (isText(child)) {
+                text.setLength(0);
+                child = normalizedText(child, text);
+                if (text.length() > 0) hash = 31 * hash + text.toString().hashCode();
+            }
+            else {
+                hash = 31 * hash + hash(child, elementHashes);
+                child = child.getNextSibling();
+            }
+        }
+        return hash;
+    }
+
+    private static boolean contentEqual(Node a, Node b) {
+        final StringBuilder aText = new StringBuilder();
+        final StringBuilder bText = new StringBuilder();
+        Node aChild = a.getFirstChild();
+        Node bChild = b.getFirstChild();
+        while (true) {
+            aText.setLength(0);
+            bText.setLength(0);
+            aChild = normalizedText(aChild, aText);
+            bChild = normalizedText(bChild, bText);
+            if (!aText.toString().contentEquals(bText)) return false;
+            if (aChild == null || bChild == null) return aChild == bChild;
+            if (!equal(aChild, bChild)) return false;
+            aChild = aChild.getNextSibling();
+            bChild = bChild.getNextSibling();
+        }
+    }
+
+    private XmlStructure() {/* static */}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Lazily materialized tree of an {@link XmlDynamic}, see {@link XmlDynamic#toDynamicTree()}.
+ * Each node indexes its children by key in a hash map the first time it's read, and caches its value,
+ * so repeated reads are hash lookups rather than DOM traversals. Unread subtrees are never materialized
+ */
+class XmlTree implements Dynamic, Describer {
+
+    protected final XmlDynamic source;
+    private volatile Map<String, Child> index;
+    private volatile String value;
+
+    XmlTree(XmlDynamic source) {
+        this.source = source;
+    }
+
+    private Map<String, Child> index() {
+        Map<String, Child> index = this.index;
+        if (index == null) {
+            synchronized (source.inner.getOwnerDocument()) {
+                index = this.index;
+                if (index == null) {
+                    final Map<String, Child> built = new LinkedHashMap<>();
+                    source.children().forEach(child -> {
+                        final String key = ((XmlDynamic.Child) child).keyLiteral().toString();
+                        built.put(key, new Child((XmlDynamic.Child) child, this, key));
+                    });
+                    this.index = index = built.isEmpty() ? Collections.emptyMap() : built;
+                }
+            }
+        }
+        return index;
+    }
+
+    /** As {@link XmlDynamic#get(Object)} */
+    @Override
+    public Dynamic get(Object keyObject) {
+        // paths are recorded per step, as the equivalent successive gets
+        if (keyObject instanceof XmlPath) return ((XmlPath) keyObject).evaluate(this);
+        if (keyObject.toString().contains(XmlPath.SEPARATOR)) return get(keyObject.toString(), XmlPath.SEPARATOR);
+        return Metrics.lookup(find(keyObject));
+    }
+
+    /** @return child, or absence, of a single step key */
+    private Dynamic find(Object keyObject) {
+        final String keyToString = keyObject.toString();
+        final Child exact = index().get(keyToString);
+        if (exact != null) return exact;
+
+        if (index.isEmpty()) {
+            if (source.hasEmptyValue()) return new ParentAbsence.Empty<>(this, keyObject);
+            return new ParentAbsence.Barren<>(this, keyObject);
+        }
+
+        // less common keys, ie "name[0]", "ns::name" or attribute fallback, are resolved in the DOM
+        final Dynamic match = source.find(keyObject);
+        if (!match.isPresent()) return new ChildAbsence.Missing<>(this, ((AbstractAbsence) match).key);
+        return indexed((XmlDynamic.Child) match);
+    }
+
+    /** As {@link XmlDynamic#getOrNull(Object)} */
+    @Override
+    public Dynamic getOrNull(Object keyObject) {
+        if (Metrics.recording()) return Metrics.presentOrNull(get(keyObject));
+        if (keyObject instanceof XmlPath) return ((XmlPath) keyObject).evaluateOrNull(this);
+
+        final String keyToString = keyObject.toString();
+        final Child exact = index().get(keyToString);
+        if (exact != null || index.isEmpty()) return exact;
+
+        if (keyToString.contains(XmlPath.SEPARATOR)) {
+            Dynamic result = this;
+            for (String part : KeyPath.split(keyToString, XmlPath.SEPARATOR)) {
+                result = result.getOrNull(part);
+                if (result == null) return null;
+            }
+            return result;
+        }
+
+        final Dynamic match = source.getOrNull(keyObject);
+        return match != null ? indexed((XmlDynamic.Child) match) : null;
+    }
+
+    /** @return tree child of a DOM resolved match, the indexed instance where it is one */
+    private Child indexed(XmlDynamic.Child match) {
+        final String matchKey = match.keyLiteral().toString();
+        final Child indexed = index().get(matchKey);
+        if (indexed != null && indexed.source.inner == match.inner) return indexed;
+        // namespaced keys index within the namespace, so may differ from the indexed key
+        return new Child(match, this, matchKey);
+    }
+
+    @Override
+    public Stream<Dynamic> children() {
+        return index().values().stream().map(Dynamic.class::cast);
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return !index().isEmpty();
+    }
+
+    @Override
+    public boolean isPresent() {
+        return true;
+    }
+
+    /** Dynamic Xml values are always {@link String}s */
+    @Override
+    public boolean is(Class<?> type) {
+        return String.class.equals(type);
+    }
+
+    @Override
+    public String asObject() {
+        String value = this.value;
+        if (value == null) this.value = value = source.asObject();
+        return value;
+    }
+
+    protected Object keyLiteral() {
+        return source.keyLiteral();
+    }
+
+    @Override
+    public Dynamic key() {
+        return DynamicChild.key(this, keyLiteral());
+    }
+
+    @Override
+    public String describe() {
+        return source.describe();
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return source.equals(((XmlTree) o).source);
+    }
+
+    @Override
+    public String toString() {
+        return keyLiteral() + ":" + describe();
+    }
+
+    static class Child extends XmlTree implements DynamicChild {
+
+        private final Dynamic parent;
+        private final String key;
+        private DynamicPath path;
+
+        Child(XmlDynamic.Child source, Dynamic parent, String key) {
+            super(source);
+            this.parent = parent;
+            this.key = key;
+        }
+
+        @Override
+        public Dynamic parent() {
+            return parent;
+        }
+
+        @Override
+        public DynamicPath path() {
+            return path = DynamicPath.cached(path, parent, key);
+        }
+
+        @Override
+        protected Object keyLiteral() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.weak;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Java Flight Recorder {@link JfrEvents}, the only class referencing {@code jdk.jfr}. Compiled separately from
+ * {@code src/main/jfr} by JDK 11+ builds & loaded reflectively by {@link Jfr}, so the library itself builds & runs
+ * against Java 8. Each operation checks its cached {@link EventType} is enabled in a running recording before
+ * creating an event, so disabled events allocate nothing.
+ * <p>
+ * Enable with a recording setting, ie {@code alexh.weak.XmlParse#enabled=true}, or all events of the
+ * {@code Dynamic} category from JDK Mission Control
+ */
+final class JdkJfrEvents implements JfrEvents {
+
+    /** traversals reaching fewer children than this aren't recorded */
+    static final int TRAVERSAL_MIN_CHILDREN = 1000;
+
+    private static final String CATEGORY = "Dynamic";
+
+    @Name("alexh.weak.XmlParse")
+    @Label("XmlDynamic Parse")
+    @Category(CATEGORY)
+    @Description("Parsing xml into an XmlDynamic")
+    static class XmlParse extends Event {
+        @Label("Bytes") @DataAmount @Description("Bytes read, or 0 for character input")
+        long bytes;
+        @Label("Characters") @Description("Characters read, or 0 for byte input")
+        long characters;
+        @Label("Nodes") @Description("DOM nodes parsed, including attributes")
+        int nodes;
+    }
+
+    @Name("alexh.weak.TimeParse")
+    @Label("Date-string Parse")
+    @Category(CATEGORY)
+    @Description("Permissive date-string parse, attempting each ConverterTimeFormats parser in order")
+    static class TimeParse extends Event {
+        @Label("Input")
+        String input;
+        @Label("Parser") @Description("Parser that succeeded, or null if all failed")
+        String parser;
+        @Label("Failed Parsers") @Description("Parsers attempted before success, comma separated")
+        String failedParsers;
+    }
+
+    @Name("alexh.weak.Traversal")
+    @Label("Dynamic Traversal")
+    @Category(CATEGORY)
+    @Description("Completed allChildren stream reaching at least " + TRAVERSAL_MIN_CHILDREN + " children, " +
+        "the duration includes consumer processing")
+    static class Traversal extends Event {
+        @Label("Order")
+        String order;
+        @Label("Children")
+        long children;
+    }
+
+    private static final EventType XML_PARSE = EventType.getEventType(XmlParse.class);
+    private static final EventType TIME_PARSE = EventType.getEventType(TimeParse.class);
+    private static final EventType TRAVERSAL = EventType.getEventType(Traversal.class);
+
+    @Override
+    public boolean xmlParseEnabled() {
+        return XML_PARSE.isEnabled();
+    }
+
+    @Override
+    public Node xmlParse(InputSource xml, Function<InputSource, Node> parser) {
+        if (!XML_PARSE.isEnabled()) return parser.apply(xml);
+        final XmlParse event = new XmlParse();
+
+        final InputSource counted = new InputSource();
+        counted.setSystemId(xml.getSystemId());
+        counted.setPublicId(xml.getPublicId());
+        counted.setEncoding(xml.getEncoding());
+        final CountingReader reader = xml.getCharacterStream() != null ?
+            new CountingReader(xml.getCharacterStream()) : null;
+        final CountingInputStream stream = reader == null && xml.getByteStream() != null ?
+            new CountingInputStream(xml.getByteStream()) : null;
+        counted.setCharacterStream(reader);
+        counted.setByteStream(stream);
+
+        event.begin();
+        final Node node = parser.apply(counted);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = stream != null ? stream.count : 0;
+            event.characters = reader != null ? reader.count : 0;
+            event.nodes = countNodes(node);
+            event.commit();
+        }
+        return node;
+    }
+
+    private static int countNodes(Node root) {
+        int nodes = 0;
+        Node node = root;
+        while (node != null) {
+            nodes += 1;
+            final NamedNodeMap attributes = node.getAttributes();
+            if (attributes != null) nodes += attributes.getLength();
+
+            if (node.getFirstChild() != null) node = node.getFirstChild();
+            else {
+                while (node != root && node.getNextSibling() == null) node = node.getParentNode();
+                node = node == root ? null : node.getNextSibling();
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public Object timeParseBegin() {
+        if (!TIME_PARSE.isEnabled()) return null;
+        final TimeParse event = new TimeParse();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void timeParseCommit(Object started, CharSequence input, String parser, List<String> failedParsers) {
+        final TimeParse event = (TimeParse) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.input = input.toString();
+            event.parser = parser;
+            event.failedParsers = failedParsers != null ? String.join(",", failedParsers) : "";
+            event.commit();
+        }
+    }
+
+    @Override
+    public Stream<Dynamic> traversal(Stream<Dynamic> children, String order) {
+        if (!TRAVERSAL.isEnabled()) return children;
+        final Traversal event = new Traversal();
+        event.order = order;
+        event.begin();
+        return StreamSupport.stream(new CountingSpliterator(children.spliterator(), event), false)
+            .onClose(children::close);
+    }
+
+    /** Counts advanced children, committing the event when exhausted */
+    private static class CountingSpliterator implements Spliterator<Dynamic> {
+
+        private final Spliterator<Dynamic> source;
+        private final Traversal event;
+        private boolean ended;
+
+        CountingSpliterator(Spliterator<Dynamic> source, Traversal event) {
+            this.source = source;
+            this.event = event;
+        }
+
+        private void end() {
+            if (ended) return;
+            ended = true;
+            event.end();
+            if (event.children >= TRAVERSAL_MIN_CHILDREN && event.shouldCommit()) event.commit();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Dynamic> action) {
+            if (source.tryAdvance(action)) {
+                event.children += 1;
+                return true;
+            }
+            end();
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Dynamic> action) {
+            source.forEachRemaining(child -> {
+                event.children += 1;
+                action.accept(child);
+            });
+            end();
+        }
+
+        /** Not split, so the count is kept in one place */
+        @Override
+        public Spliterator<Dynamic> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~(SIZED | SUBSIZED);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read != -1) count += 1;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            final int read = super.read(bytes, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static class CountingReader extends FilterReader {
+
+        long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read != -1) count += 1;
+            return read;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            final int read = super.read(chars, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import alexh.weak.Converter;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bytes allocated per operation of core calls, measured with the thread allocation counter after warming up.
+ * Each operation has a budget a little above its measured allocation, so changes allocating more per call fail
+ * here. When an optimization lowers an operation's allocation lower its budget too
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int OPERATIONS = 10_000;
+    private static final int RUNS = 5;
+
+    private static com.sun.management.ThreadMXBean threads;
+    /** consumes results so the JIT can't remove operations */
+    private static volatile int sink;
+
+    private final Dynamic dy = Dynamic.from(new Fluent.HashMap<>()
+        .append("key1", new Fluent.HashMap<>()
+            .append("key2", "hello")
+            .append("key3", new Fluent.HashMap<>()
+                .append("key4", 123)))
+        .append("key5", asList(1, 2, 3, 4))
+        .append("number", "1234")
+        .append("date", "2015-03-07T00:37:41.946"));
+
+    private final XmlDynamic xml = new XmlDynamic(
+        "<product><id>1234</id><name>some name</name><price currency=\"GBP\">12.34</price></product>");
+
+    @BeforeAll
+    public static void threadAllocationCounting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /** @return fewest bytes allocated per operation over a few runs, after warming up */
+    private static long bytesPerOperation(Supplier<?> operation) {
+        for (int i = 0; i < WARMUP; i++) sink += System.identityHashCode(operation.get());
+
+        final long thread = Thread.currentThread().getId();
+        long fewest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            final long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < OPERATIONS; i++) sink += System.identityHashCode(operation.get());
+            final long after = threads.getThreadAllocatedBytes(thread);
+            fewest = Math.min(fewest, (after - before) / OPERATIONS);
+        }
+        return fewest;
+    }
+
+    private static void assertBudget(String operation, long budget, Supplier<?> op) {
+        final long bytes = bytesPerOperation(op);
+        System.out.println(operation + ": " + bytes + " bytes/op, budget " + budget);
+        assertThat(bytes).as("%s bytes allocated per operation", operation).isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    public void dgetHit() {
+        assertBudget("dget hit", 512, () -> dy.dget("key1.key3.key4"));
+    }
+
+    @Test
+    public void dgetMiss() {
+        assertBudget("dget miss", 640, () -> dy.dget("key1.nope.key4"));
+    }
+
+    @Test
+    public void hasMiss() {
+        assertBudget("has miss", 480, () -> dy.has("key1.nope.key4"));
+    }
+
+    @Test
+    public void convertIntoInteger() {
+        assertBudget("convert().intoInteger()", 800, () -> dy.get("number").convert().intoInteger());
+    }
+
+    @Test
+    public void intoLocalDateTime() {
+        assertBudget("intoLocalDateTime()", 6144, () -> Converter.convert("2015-03-07T00:37:41.946").intoLocalDateTime());
+    }
+
+    @Test
+    public void xmlGet() {
+        assertBudget("XmlDynamic.get", 900, () -> xml.get("product|name"));
+    }
+
+    @Test
+    public void xmlGetOrNullMiss() {
+        assertBudget("XmlDynamic.getOrNull miss", 880, () -> xml.getOrNull("product|nope"));
+    }
+
+    @Test
+    public void childrenIteration() {
+        assertBudget("children() iteration", 900, () -> dy.get("key5").children().mapToInt(child -> child.key().hashCode()).sum());
+    }
+}
@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import alexh.weak.Converter;
 import alexh.weak.ConverterMaybe;
 import java.math.BigDecimal;
+import java.nio.CharBuffer;
 import java.time.*;
 import java.util.*;
 import java.util.function.Function;
@@ -129,6 +130,40 @@ public class ConverterTest {
             .throwsWhen(Converter::intoZonedDateTime);
     }
 
+    @Test
+    public void charSequenceNumbers() {
+        for (CharSequence chars : asList(new StringBuilder("1234"), CharBuffer.wrap("1234"))) {
+            test(chars)
+                .expect(Converter::intoString, "1234")
+                .expect(Converter::intoInteger, 1234)
+                .expect(Converter::intoLong, 1234l)
+                .expect(Converter::intoDouble, 1234d)
+                .expect(Converter::intoDecimal, new BigDecimal(1234));
+        }
+        test(new StringBuilder("-1425688985487"))
+            .throwsWhen(Converter::intoInteger)
+            .expect(Converter::intoLong, -1425688985487l);
+        test(CharBuffer.wrap("12345.6789"))
+            .expect(Converter::intoInteger, 12346)
+            .expect(Converter::intoDecimal, new BigDecimal("12345.6789"));
+        test(new StringBuilder("99999999999999999999"))
+            .throwsWhen(Converter::intoLong)
+            .expect(Converter::intoDecimal, new BigDecimal("99999999999999999999"));
+        test(new StringBuilder("12a"))
+            .throwsWhen(Converter::intoInteger)
+            .throwsWhen(Converter::intoDecimal);
+        test(new StringBuilder())
+            .throwsWhen(Converter::intoLong);
+    }
+
+    @Test
+    public void charSequenceDates() {
+        test(CharBuffer.wrap("2015-03-07T00:37:41.946642144Z[Europe/London]"))
+            .expect(Converter::intoZonedDateTime, ZonedDateTime.parse("2015-03-07T00:37:41.946642144Z[Europe/London]"));
+        test(new StringBuilder("2015-03"))
+            .expect(Converter::intoLocalDateTime, LocalDateTime.of(2015, 3, 1, 0, 0));
+    }
+
     @Test
     public void isoDateString() {
         test("2015-03-07T00:37:41.946642144Z[Europe/London]")
@@ -387,6 +387,30 @@ public class DynamicBaseTest {
         assertThat(dy.get("element that doesn't exist").children().count()).isEqualTo(0l);
     }
 
+    @Test
+    public void hasChildren() {
+        assertThat(dy.hasChildren()).isTrue();
+        assertThat(dy.get("a").hasChildren()).isTrue();
+        assertThat(dy.get("b").hasChildren()).isTrue();
+        assertThat(dy.get("c").hasChildren()).isFalse();
+        assertThat(dy.dget("a.two.zed").hasChildren()).isFalse();
+        assertThat(dy.dget("a.one.blah").hasChildren()).isFalse();
+        assertThat(dy.dget("a.two.why").hasChildren()).isFalse();
+        assertThat(dy.get("nope").hasChildren()).isFalse();
+        assertThat(Dynamic.from(null).hasChildren()).isFalse();
+        assertThat(Dynamic.from(singleton("x")).hasChildren()).isTrue();
+        assertThat(Dynamic.from(emptySet()).hasChildren()).isFalse();
+    }
+
+    @Test
+    public void isLeaf() {
+        assertThat(dy.dget("a.one.blah").isLeaf()).isTrue();
+        assertThat(dy.dget("a.two.zed").isLeaf()).isTrue();
+        assertThat(dy.get("a").isLeaf()).isFalse();
+        assertThat(dy.dget("a.two.why").isLeaf()).isFalse();
+        assertThat(dy.get("nope").isLeaf()).isFalse();
+    }
+
     @Test
     public void providesConverterInstanceMethod() {
         assertThat(dy.dget("a.two.ecks").convert().intoString()).isEqualTo("123");
@@ -0,0 +1,217 @@
+package alexh;
+
+import static alexh.JsonDynamicTest.JSON;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicCodec;
+import alexh.weak.JsonDynamic;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+public class DynamicCodecTest {
+
+    private static Dynamic roundTrip(Object value, DynamicCodec.Option... options) {
+        return DynamicCodec.read(ByteBuffer.wrap(DynamicCodec.toBytes(Dynamic.from(value), options)));
+    }
+
+    @Test
+    public void roundTripsValueKinds() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("string", "some \"text\" é中");
+        map.put("int", -12);
+        map.put("long", Long.MIN_VALUE);
+        map.put("short", (short) 300);
+        map.put("byte", (byte) -3);
+        map.put("double", 1.25d);
+        map.put("integralDouble", -3d);
+        map.put("negativeZero", -0d);
+        map.put("hugeDouble", 1e300);
+        map.put("float", -0.5f);
+        map.put("bigInteger", new BigInteger("-123456789012345678901234567890"));
+        map.put("bigDecimal", new BigDecimal("1234567890.0987654321"));
+        map.put("char", 'é');
+        map.put("true", true);
+        map.put("false", false);
+        map.put("null", null);
+        map.put("uuid", UUID.randomUUID());
+        map.put("date", new Date(1425688985487L));
+        map.put("instant", Instant.ofEpochSecond(-5, 123));
+        map.put("localDate", LocalDate.of(1999, 12, 31));
+        map.put("localDateTime", LocalDateTime.of(2015, 3, 7, 12, 0, 1, 5));
+        map.put("zonedDateTime", ZonedDateTime.of(2015, 3, 7, 12, 0, 0, 0, ZoneId.of("Europe/London")));
+        map.put("offsetDateTime", OffsetDateTime.of(2015, 3, 7, 12, 0, 0, 0, ZoneOffset.ofHours(-3)));
+        map.put("optional", Optional.of(1));
+        map.put("empty", Optional.empty());
+        map.put(7, "integer key");
+        map.put("list", asList(1, null, "three"));
+        map.put("set", new LinkedHashSet<>(asList("a", "b")));
+        map.put("nested", Collections.singletonMap("a", Collections.singletonMap("b", new HashMap<>())));
+
+        Dynamic decoded = roundTrip(map);
+        assertThat(decoded.asObject()).isEqualTo(map);
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            if (entry.getValue() == null) continue;
+            assertThat(decoded.get(entry.getKey()).asObject()).as(entry.getKey().toString())
+                .isEqualTo(entry.getValue())
+                .isInstanceOf(entry.getValue() instanceof Collection ? Collection.class :
+                    entry.getValue() instanceof Map ? Map.class : entry.getValue().getClass());
+        }
+        assertThat(decoded.get("null").isPresent()).isFalse();
+        assertThat(1 / decoded.get("negativeZero").as(Double.class)).isNegative();
+        assertThat(decoded.get("set").asObject()).isInstanceOf(Set.class);
+
+        Dynamic collection = roundTrip(new ArrayDeque<>(asList(1, 2)));
+        assertThat(collection.asObject()).isInstanceOf(Collection.class).isNotInstanceOf(List.class);
+        assertThat(collection.children().map(Dynamic::asObject)).containsExactly(1, 2);
+        assertThat(collection.toString()).isEqualTo(Dynamic.from(new ArrayDeque<>(asList(1, 2))).toString());
+    }
+
+    @Test
+    public void topLevelValues() {
+        assertThat(roundTrip(null).isPresent()).isFalse();
+        assertThat(roundTrip("hello").asString()).isEqualTo("hello");
+        assertThat(roundTrip(asList()).asList()).isEmpty();
+        assertThat(DynamicCodec.read(ByteBuffer.wrap(DynamicCodec.toBytes(new JsonDynamic(JSON)))))
+            .isEqualTo(Dynamic.from(new JsonDynamic(JSON).asObject()));
+    }
+
+    @Test
+    public void smallerThanJson() {
+        List<Object> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", i);
+            record.put("name", "record-" + i);
+            record.put("active", i % 2 == 0);
+            record.put("score", i * 1.5);
+            records.add(record);
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Object record : records) {
+            Map<?, ?> r = (Map<?, ?>) record;
+            json.append(json.length() > 1 ? "," : "").append("{\"id\":").append(r.get("id"))
+                .append(",\"name\":\"").append(r.get("name")).append("\",\"active\":").append(r.get("active"))
+                .append(",\"score\":").append(r.get("score")).append('}');
+        }
+        json.append(']');
+
+        byte[] encoded = DynamicCodec.toBytes(Dynamic.from(records));
+        assertThat(encoded.length).isLessThan(json.toString().getBytes(UTF_8).length * 2 / 3);
+        assertThat(roundTrip(records).asObject()).isEqualTo(records);
+    }
+
+    @Test
+    public void deduplicatesSubTrees() {
+        Map<String, Object> shared = new LinkedHashMap<>();
+        shared.put("currency", "GBP");
+        shared.put("limits", asList(100, 200, 300));
+        List<Object> payload = new ArrayList<>();
+        for (int i = 0; i < 100; i++) payload.add(new LinkedHashMap<>(shared));
+        payload.add(asList(100, 200, 300));
+
+        byte[] plain = DynamicCodec.toBytes(Dynamic.from(payload));
+        byte[] deduplicated = DynamicCodec.toBytes(Dynamic.from(payload), DynamicCodec.Option.DEDUPLICATE);
+        assertThat(deduplicated.length).isLessThan(plain.length / 5);
+
+        Dynamic decoded = roundTrip(payload, DynamicCodec.Option.DEDUPLICATE);
+        assertThat(decoded.asObject()).isEqualTo(payload);
+        assertThat(decoded.get(99).asObject()).isSameAs(decoded.get(0).asObject());
+        assertThat(decoded.get(100).asObject()).isSameAs(decoded.get(0).get("limits").asObject());
+    }
+
+    @Test
+    public void streams() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DynamicCodec.write(Dynamic.from(asList(1, 2)), out);
+        DynamicCodec.write(Dynamic.from("second"), out, DynamicCodec.Option.DEDUPLICATE);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertThat(DynamicCodec.read(in).asList()).containsExactly(1, 2);
+        assertThat(DynamicCodec.read(in).asString()).isEqualTo("second");
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    public void buffers() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        DynamicCodec.write(Dynamic.from(Collections.singletonMap("a", 1)), buffer);
+        DynamicCodec.write(Dynamic.from(Collections.singletonMap("a", 2)), buffer);
+        buffer.flip();
+
+        assertThat(DynamicCodec.read(buffer).get("a").asObject()).isEqualTo(1);
+        assertThat(DynamicCodec.read(buffer).get("a").asObject()).isEqualTo(2);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void invalid() {
+        assertThatThrownBy(() -> DynamicCodec.read(ByteBuffer.wrap("{}".getBytes(UTF_8))))
+            .isInstanceOf(IllegalArgumentException.class);
+        byte[] encoded = DynamicCodec.toBytes(Dynamic.from(asList("a", "b")));
+        assertThatThrownBy(() -> DynamicCodec.read(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 1))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DynamicCodec.toBytes(Dynamic.from(new Object())))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void javaSerializationUnsupported() {
+        assertThatThrownBy(() -> DynamicCodec.toBytes(Dynamic.from(singletonMap("a", Thread.State.RUNNABLE))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cannot encode java.lang.Thread$State");
+        assertThatThrownBy(() -> DynamicCodec.toBytes(Dynamic.from(singletonMap(new File("a"), 1))))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        // a message using the tag formerly holding java serialized values, here an empty ObjectInputStream
+        byte[] serialized = { 'D', 'C', 1, 0, 6, 28, 4, (byte) 0xAC, (byte) 0xED, 0, 5 };
+        assertThatThrownBy(() -> DynamicCodec.read(ByteBuffer.wrap(serialized)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("unknown tag 28");
+        assertThatThrownBy(() -> DynamicCodec.read(new ByteArrayInputStream(serialized)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("unknown tag 28");
+    }
+
+    @Test
+    public void streamLengthHeaderUntrusted() {
+        // claims a 2GB - 1 body, then ends
+        byte[] huge = { 'D', 'C', 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        assertThatThrownBy(() -> DynamicCodec.read(new ByteArrayInputStream(huge)))
+            .hasRootCauseInstanceOf(EOFException.class);
+
+        byte[] continued = { 'D', 'C', 1, 0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 };
+        byte[] wrapped = { 'D', 'C', 1, 0, (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10 };
+        byte[] negative = { 'D', 'C', 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+        for (byte[] malformed : asList(continued, wrapped, negative)) {
+            assertThatThrownBy(() -> DynamicCodec.read(new ByteArrayInputStream(malformed)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("length");
+            assertThatThrownBy(() -> DynamicCodec.read(ByteBuffer.wrap(Arrays.copyOf(malformed, 64))))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void streamLargeBody() {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) large.append("value").append(i);
+        byte[] encoded = DynamicCodec.toBytes(Dynamic.from(singletonMap("a", large.toString())));
+
+        assertThat(DynamicCodec.read(new ByteArrayInputStream(encoded)).get("a").asObject())
+            .isEqualTo(large.toString());
+        assertThatThrownBy(() -> DynamicCodec.read(new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1))))
+            .hasRootCauseInstanceOf(EOFException.class);
+    }
+}
@@ -0,0 +1,195 @@
+package alexh;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicSnapshot;
+import alexh.weak.XmlDynamic;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Throughput of mixed get, children, asString & convert calls on single Dynamic instances shared by 1 to 2 x cores
+ * threads, reporting ops/sec, scaling against a single thread & the share of time workers were blocked on monitors,
+ * ie the {@code synchronized(ownerDocument)} paths of {@link XmlDynamic}.
+ * <p>
+ * Not run by default, run with {@code mvn test -Pbenchmark}, optionally setting seconds measured per thread count
+ * with {@code -Dbenchmark.seconds=5}
+ */
+public class DynamicContentionBenchmark {
+
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("benchmark.seconds", 2));
+    /** a single operation is far quicker, so workers not finishing in this time are stuck */
+    private static final long FINISH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final String XML =
+        "<order id=\"1234\">" +
+            "<customer><name>some name</name><address><city>London</city></address></customer>" +
+            "<lines>" +
+                "<line><sku>A-1</sku><quantity>2</quantity></line>" +
+                "<line><sku>B-2</sku><quantity>1</quantity></line>" +
+                "<line><sku>C-3</sku><quantity>5</quantity></line>" +
+            "</lines>" +
+        "</order>";
+
+    private static final Dynamic MAP = Dynamic.from(new Fluent.HashMap<>()
+        .append("order", new Fluent.HashMap<>()
+            .append("id", "1234")
+            .append("customer", new Fluent.HashMap<>()
+                .append("name", "some name")
+                .append("address", new Fluent.HashMap<>().append("city", "London")))
+            .append("lines", new Fluent.HashMap<>()
+                .append("line", new Fluent.HashMap<>().append("sku", "A-1").append("quantity", "2"))
+                .append("line[1]", new Fluent.HashMap<>().append("sku", "B-2").append("quantity", "1"))
+                .append("line[2]", new Fluent.HashMap<>().append("sku", "C-3").append("quantity", "5")))));
+
+    private static ThreadMXBean threads;
+
+    @BeforeAll
+    public static void contentionMonitoring() {
+        threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadContentionMonitoringSupported()) threads.setThreadContentionMonitoringEnabled(true);
+    }
+
+    /** One unit of mixed work against an order shaped Dynamic, dot separated for maps & | separated for xml */
+    private static int mixedOperations(Dynamic order, String separator) {
+        int result = order.get("customer" + separator + "name", separator).asString().length();
+        result += (int) order.get("lines", separator).children().count();
+        result += order.get("lines" + separator + "line[2]" + separator + "quantity", separator)
+            .convert().intoInteger();
+        result += order.get("customer" + separator + "address" + separator + "city", separator).asString().hashCode();
+        result += order.get("customer" + separator + "missing", separator).isPresent() ? 1 : 0;
+        return result;
+    }
+
+    @Test
+    public void sharedXmlDynamic() throws Exception {
+        final Dynamic order = new XmlDynamic(XML).get("order");
+        report("XmlDynamic", () -> mixedOperations(order, "|"));
+    }
+
+    @Test
+    public void sharedXmlTree() throws Exception {
+        final Dynamic order = new XmlDynamic(XML).toDynamicTree().get("order");
+        report("XmlDynamic#toDynamicTree()", () -> mixedOperations(order, "|"));
+    }
+
+    @Test
+    public void sharedDynamicMap() throws Exception {
+        final Dynamic order = MAP.get("order");
+        report("DynamicMap", () -> mixedOperations(order, "."));
+    }
+
+    @Test
+    public void sharedSnapshot() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DynamicSnapshot.write(MAP, bytes);
+        final Dynamic order = DynamicSnapshot.open(ByteBuffer.wrap(bytes.toByteArray())).get("order");
+        report("DynamicSnapshot", () -> mixedOperations(order, "."));
+    }
+
+    private interface Operation {
+        int run();
+    }
+
+    private static void report(String name, Operation operation) throws Exception {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final List<Integer> threadCounts = new ArrayList<>();
+        for (int count = 1; count < 2 * cores; count *= 2) threadCounts.add(count);
+        threadCounts.add(2 * cores);
+
+        System.out.println(name + " shared by threads, " + cores + " cores");
+        System.out.println(String.format("%8s %14s %8s %9s", "threads", "ops/sec", "scaling", "blocked"));
+        double singleThreaded = 0;
+        for (int count : threadCounts) {
+            final Result result = measure(count, operation);
+            if (count == 1) singleThreaded = result.opsPerSecond;
+            System.out.println(String.format("%8d %14.0f %7.2fx %8.1f%%", count, result.opsPerSecond,
+                result.opsPerSecond / singleThreaded, result.blockedShare * 100));
+            assertThat(result.opsPerSecond).isPositive();
+        }
+        System.out.println();
+    }
+
+    private static class Result {
+        double opsPerSecond;
+        double blockedShare;
+    }
+
+    private static Result measure(int threadCount, Operation operation) throws Exception {
+        final AtomicBoolean measuring = new AtomicBoolean();
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(threadCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final long[] operations = new long[threadCount];
+        final long[] blockedMillis = new long[threadCount];
+        final int[] sinks = new int[threadCount];
+
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int worker = t;
+            final Thread thread = new Thread(() -> {
+                try {
+                    final long id = Thread.currentThread().getId();
+                    // accumulated locally, so workers don't write neighbouring array elements each operation
+                    int sink = 0;
+                    while (!measuring.get() && !stopped.get()) sink += operation.run();
+
+                    final long blockedBefore = threads.getThreadInfo(id).getBlockedTime();
+                    long count = 0;
+                    while (!stopped.get()) {
+                        sink += operation.run();
+                        count += 1;
+                    }
+                    operations[worker] = count;
+                    blockedMillis[worker] = threads.getThreadInfo(id).getBlockedTime() - blockedBefore;
+                    sinks[worker] = sink;
+                }
+                catch (Throwable ex) {
+                    if (!failure.compareAndSet(null, ex)) failure.get().addSuppressed(ex);
+                    stopped.set(true);
+                }
+                finally {
+                    finished.countDown();
+                }
+            }, "contention-benchmark-" + t);
+            thread.setDaemon(true);
+            workers.add(thread);
+        }
+
+        workers.forEach(Thread::start);
+        Thread.sleep(WARMUP_MILLIS);
+        measuring.set(true);
+        final long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        stopped.set(true);
+        final boolean allFinished = finished.await(FINISH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (failure.get() != null) throw new AssertionError("benchmark worker failed", failure.get());
+        if (!allFinished) {
+            throw new TimeoutException(finished.getCount() + " of " + threadCount +
+                " workers still running after " + FINISH_TIMEOUT_MILLIS + "ms");
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        final Result result = new Result();
+        long totalOperations = 0, totalBlocked = 0;
+        for (int t = 0; t < threadCount; t++) {
+            totalOperations += operations[t];
+            totalBlocked += Math.max(blockedMillis[t], 0);
+        }
+        result.opsPerSecond = totalOperations / seconds;
+        result.blockedShare = totalBlocked / (seconds * 1000 * threadCount);
+        return result;
+    }
+}
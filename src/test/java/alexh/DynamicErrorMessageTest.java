@@ -7,9 +7,12 @@ import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import alexh.weak.Dynamic;
+import alexh.weak.DynamicExceptions;
 import alexh.weak.Weak;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -265,4 +268,48 @@ public class DynamicErrorMessageTest {
             .contains("java.lang.String", "java.lang.Integer");
         System.out.println(message);
     }
+
+    @Test
+    public void stacklessMessagesAreIdentical() {
+        List<Runnable> throwers = asList(
+            () -> dy.get("foo").asObject(),
+            () -> dy.get("key1").get("key3").get("barrr").get("A").get("B").asObject(),
+            () -> dy.get("key1").get("key3").get("key6").get("key7").get("key8").asObject(),
+            () -> dy.get("key5").get(4).asObject(),
+            () -> dy.get("key8").get(4).get("bar").asObject(),
+            () -> Dynamic.from(null).get("foo").get("bar").get(33).asObject(),
+            () -> dy.as(Long.class),
+            () -> dy.dget("key1.key2").asList(),
+            () -> dy.dget("key5.1").as(int.class));
+
+        Function<Runnable, RuntimeException> thrown = runnable -> {
+            try { runnable.run(); }
+            catch (NoSuchElementException | ClassCastException e) { return e; }
+            throw new AssertionError("Runnable did not error as expected");
+        };
+
+        try {
+            for (Runnable thrower : throwers) {
+                DynamicExceptions.setStackless(false);
+                RuntimeException standard = thrown.apply(thrower);
+                DynamicExceptions.setStackless(true);
+                RuntimeException stackless = thrown.apply(thrower);
+
+                assertThat(stackless).isInstanceOf(standard.getClass());
+                assertThat(stackless.getStackTrace()).isEmpty();
+                assertThat(stackless.getMessage()).isEqualTo(standard.getMessage());
+                assertThat(standard.getStackTrace()).isNotEmpty();
+            }
+        }
+        finally {
+            DynamicExceptions.setStackless(false);
+        }
+    }
+
+    @Test
+    public void miscastMessageIncludesClassCastMessage() {
+        String expected = classCastErrorMessage(() -> List.class.cast("hello"));
+        assertThat(classCastErrorMessage(() -> dy.dget("key1.key2").asList())).contains(expected);
+        assertThat(classCastErrorMessage(() -> Dynamic.from("hello").asList())).contains(expected);
+    }
 }
@@ -0,0 +1,94 @@
+package alexh;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.ConverterTimeFormats;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+public class DynamicJfrEventsTest {
+
+    private static List<RecordedEvent> record(String eventName, Runnable runnable) throws Exception {
+        final Path file = Files.createTempFile("dynamic", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(toList());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void xmlParse() throws Exception {
+        final String xml = "<product id=\"1\"><name>some name</name><price>12.34</price></product>";
+
+        List<RecordedEvent> events = record("alexh.weak.XmlParse", () -> {
+            new XmlDynamic(xml.getBytes(StandardCharsets.UTF_8));
+            new XmlDynamic(xml);
+        });
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getLong("bytes")).isEqualTo(xml.length());
+        assertThat(events.get(0).getLong("characters")).isZero();
+        assertThat(events.get(1).getLong("characters")).isEqualTo(xml.length());
+        assertThat(events.get(1).getLong("bytes")).isZero();
+        // product, id attribute, name, name text, price, price text
+        assertThat(events.get(0).getInt("nodes")).isEqualTo(6);
+        assertThat(events.get(0).getDuration()).isPositive();
+    }
+
+    @Test
+    public void timeParse() throws Exception {
+        List<RecordedEvent> events = record("alexh.weak.TimeParse", () -> {
+            ConverterTimeFormats.parse("07/03/2015 00:37");
+            try { ConverterTimeFormats.parse("not a date"); }
+            catch (RuntimeException ex) { /* expected */ }
+        });
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getString("input")).isEqualTo("07/03/2015 00:37");
+        assertThat(events.get(0).getString("parser")).isEqualTo("DAY_MONTH_YEAR_PERMISSIVE_SLASH");
+        assertThat(events.get(0).getString("failedParsers")).isEqualTo("ISO_PERMISSIVE,DAY_MONTH_YEAR_PERMISSIVE_DASH");
+        assertThat(events.get(1).getString("parser")).isNull();
+        assertThat(events.get(1).getString("failedParsers")).contains("ISO_PERMISSIVE", "EPOCH_MILLIS_PARSER");
+    }
+
+    @Test
+    public void largeTraversals() throws Exception {
+        Map<String, Object> large = new Fluent.LinkedHashMap<>();
+        for (int i = 0; i < 600; i++) large.put("key" + i, new Fluent.HashMap<>().append("value", i));
+        Dynamic small = Dynamic.from(new Fluent.HashMap<>().append("a", 1));
+        List<Dynamic> traversed = new ArrayList<>();
+
+        List<RecordedEvent> events = record("alexh.weak.Traversal", () -> {
+            Dynamic.from(large).allChildren().forEach(traversed::add);
+            assertThat(Dynamic.from(large).allChildrenBreadthFirst().count()).isEqualTo(1200);
+            small.allChildren().count();
+            Dynamic.from(large).allChildren().findFirst();
+        });
+
+        assertThat(traversed).hasSize(1200);
+        assertThat(traversed.get(1).toString()).isEqualTo("root->key0->value:Integer");
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getString("order")).isEqualTo("depth-first");
+        assertThat(events.get(0).getLong("children")).isEqualTo(1200);
+        assertThat(events.get(1).getString("order")).isEqualTo("breadth-first");
+    }
+}
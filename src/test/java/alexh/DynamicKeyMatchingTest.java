@@ -0,0 +1,115 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.Dynamic;
+import alexh.weak.KeyMatching;
+import alexh.weak.XmlDynamic;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+public class DynamicKeyMatchingTest {
+
+    private final Object message = new Fluent.LinkedHashMap<>()
+        .append("CustomerID", "c-123")
+        .append("order_lines", asList(
+            new Fluent.LinkedHashMap<>().append("Product-Code", "p1").append("qty", 2),
+            new Fluent.LinkedHashMap<>().append("product_code", "p2").append("QTY", 1)))
+        .append("shipping", null)
+        .append(42, "numeric");
+
+    @Test
+    public void caseInsensitive() {
+        Dynamic dy = Dynamic.from(message, KeyMatching.CASE_INSENSITIVE);
+
+        assertThat(dy.get("customerid").asString()).isEqualTo("c-123");
+        assertThat(dy.get("CUSTOMERID").key().asString()).isEqualTo("CustomerID");
+        assertThat(dy.dget("ORDER_LINES.1.qty").asObject()).isEqualTo(1);
+        assertThat(dy.get("customerId").get("foo").isPresent()).isFalse();
+        assertThat(dy.get("customer_id").isPresent()).isFalse();
+        assertThat(dy.get("42").asString()).isEqualTo("numeric");
+        assertThat(dy.get(42).asString()).isEqualTo("numeric");
+    }
+
+    @Test
+    public void normalized() {
+        Dynamic dy = Dynamic.from(message, KeyMatching.NORMALIZED);
+
+        assertThat(dy.get("customer_id").asString()).isEqualTo("c-123");
+        assertThat(dy.get("customerId").asString()).isEqualTo("c-123");
+        assertThat(dy.dget("orderLines.0.product_code").asString()).isEqualTo("p1");
+        assertThat(dy.dget("orderLines.1.productCode").asString()).isEqualTo("p2");
+        assertThat(dy.get("orderLines").children().map(line -> line.get("Qty").asObject()).collect(toList()))
+            .containsExactly(2, 1);
+        assertThat(dy.dgetOrNull("orderLines.1.productCode")).isSameAs(dy.dget("order_lines.1.product_code"));
+        assertThat(dy.has("orderLines.1.product")).isFalse();
+        assertThat(dy.has("Shipping")).isFalse();
+        assertThat(KeyMatching.NORMALIZED.normalize("Customer_ID")).isEqualTo(KeyMatching.NORMALIZED.normalize("customerId"));
+    }
+
+    @Test
+    public void exactKeysPreferred() {
+        Dynamic dy = Dynamic.from(new Fluent.LinkedHashMap<>()
+            .append("customer_id", 1)
+            .append("customerId", 2), KeyMatching.NORMALIZED);
+
+        assertThat(dy.get("customerId").asObject()).isEqualTo(2);
+        assertThat(dy.get("customer_id").asObject()).isEqualTo(1);
+        assertThat(dy.get("CUSTOMER-ID").asObject()).isEqualTo(1);
+    }
+
+    @Test
+    public void sameDescriptionsAsExact() {
+        Dynamic exact = Dynamic.from(message);
+        Dynamic dy = Dynamic.from(message, KeyMatching.NORMALIZED);
+
+        assertThat(dy.toString()).isEqualTo(exact.toString());
+        assertThat(dy.dget("orderLines.1").toString()).isEqualTo(exact.dget("order_lines.1").toString());
+        assertThat(dy.dget("orderLines.1").asObject()).isEqualTo(exact.dget("order_lines.1").asObject());
+        assertThat(dy.get("shipping").isPresent()).isFalse();
+        assertThatThrownBy(() -> dy.dget("orderLines.5.qty").asObject())
+            .isInstanceOf(NoSuchElementException.class)
+            .hasMessage(getMessage(() -> exact.dget("order_lines.5.qty").asObject()));
+        assertThatThrownBy(() -> dy.dget("Shipping.address").asObject())
+            .isInstanceOf(NoSuchElementException.class)
+            .hasMessageContaining("null 'shipping' premature end of path root->*shipping*");
+    }
+
+    @Test
+    public void childrenAreIndexedOnce() {
+        Dynamic dy = Dynamic.from(message, KeyMatching.CASE_INSENSITIVE);
+        assertThat(dy.get("order_lines")).isSameAs(dy.get("ORDER_LINES"));
+        assertThat(dy.dget("order_lines.0")).isSameAs(dy.dget("Order_Lines.0"));
+    }
+
+    @Test
+    public void xml() {
+        Dynamic xml = Dynamic.from(new XmlDynamic(
+            "<Product ID=\"p1\">" +
+                "<Name>hello</Name>" +
+                "<Investment>a</Investment>" +
+                "<Investment>b</Investment>" +
+            "</Product>"), KeyMatching.CASE_INSENSITIVE);
+
+        assertThat(xml.get("product|name").asString()).isEqualTo("hello");
+        assertThat(xml.get("PRODUCT").get("NAME").asString()).isEqualTo("hello");
+        assertThat(xml.get("product|investment[1]").asString()).isEqualTo("b");
+        assertThat(xml.get("product|investment[0]").asString()).isEqualTo("a");
+        assertThat(xml.get("product|investment").asString()).isEqualTo("a");
+        assertThat(xml.get("product|@id").asString()).isEqualTo("p1");
+        assertThat(xml.get("product|id").asString()).isEqualTo("p1");
+        assertThat(xml.get("product|investment[2]").isPresent()).isFalse();
+    }
+
+    private static String getMessage(Runnable runnable) {
+        try {
+            runnable.run();
+            return null;
+        }
+        catch (RuntimeException ex) {
+            return ex.getMessage();
+        }
+    }
+}
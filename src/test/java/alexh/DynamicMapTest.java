@@ -4,6 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import alexh.weak.Dynamic;
 import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 public class DynamicMapTest {
@@ -61,6 +66,57 @@ public class DynamicMapTest {
             .isEqualTo("hello");
     }
 
+    @Test
+    public void stringGetsMatchToStringsOfLargeMaps() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) map.put(i, "value-" + i);
+        map.put("500", "exact");
+        Dynamic dy = Dynamic.from(map);
+
+        assertThat(dy.get("999").asObject()).isEqualTo("value-999");
+        assertThat(dy.get("999").key().asObject()).isEqualTo("999");
+        assertThat(dy.get("500").asObject()).as("Should choose exact match over toString").isEqualTo("exact");
+        assertThat(dy.get("1000").isPresent()).isFalse();
+
+        map.put(1000, "added");
+        assertThat(dy.get("1000").asObject()).isEqualTo("added");
+        map.remove(999);
+        assertThat(dy.get("999").isPresent()).isFalse();
+        map.put(null, "null key");
+        assertThat(dy.get("null").isPresent()).isFalse();
+    }
+
+    @Test
+    public void stringGetsSeeKeysReplacedAtSameSize() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) map.put(i, "value-" + i);
+        Dynamic dy = Dynamic.from(map);
+        assertThat(dy.get("50").asObject()).isEqualTo("value-50");
+
+        map.remove(50);
+        map.put(ChronoUnit.DAYS, "days");
+        assertThat(dy.get("Days").asObject()).isEqualTo("days");
+        assertThat(dy.has("Days")).isTrue();
+        assertThat(dy.get("50").isPresent()).isFalse();
+
+        map.remove(ChronoUnit.DAYS);
+        map.put(50L, "long 50");
+        assertThat(dy.get("50").asObject()).isEqualTo("long 50");
+        assertThat(dy.get("Days").isPresent()).isFalse();
+    }
+
+    @Test
+    public void stringGetsMatchEnumKeys() {
+        Map<ChronoUnit, Object> map = new EnumMap<>(ChronoUnit.class);
+        for (ChronoUnit unit : ChronoUnit.values()) map.put(unit, unit.ordinal());
+        Map<String, Object> parent = new HashMap<>();
+        for (int i = 0; i < 20; i++) parent.put("units-" + i, map);
+
+        assertThat(Dynamic.from(parent).get("units-3").get("Seconds").asObject()).isEqualTo(3);
+        assertThat(Dynamic.from(parent).get("units-3").get("SECONDS").isPresent()).isFalse();
+        assertThat(Dynamic.from(parent).get("units-30").isPresent()).isFalse();
+    }
+
     @Test
     public void equalsImplementation() {
         assertEquals(dynamicMap, Dynamic.from(new Fluent.HashMap<>()
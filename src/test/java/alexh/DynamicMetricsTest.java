@@ -0,0 +1,190 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import alexh.weak.Converter;
+import alexh.weak.ConverterTimeFormats;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicMetrics;
+import alexh.weak.DynamicSnapshot;
+import alexh.weak.InMemoryDynamicMetrics;
+import alexh.weak.JsonDynamic;
+import alexh.weak.XmlDynamic;
+import alexh.weak.XmlPath;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DynamicMetricsTest {
+
+    private final InMemoryDynamicMetrics metrics = new InMemoryDynamicMetrics();
+
+    private final Dynamic dy = Dynamic.from(new Fluent.HashMap<>()
+        .append("key1", new Fluent.HashMap<>()
+            .append("key2", "hello")
+            .append("key3", null))
+        .append("key4", asList(1, 2))
+        .append("key5", "2015-03"));
+
+    @BeforeEach
+    public void register() {
+        DynamicMetrics.register(metrics);
+    }
+
+    @AfterEach
+    public void unregister() {
+        DynamicMetrics.unregister();
+    }
+
+    @Test
+    public void lookups() {
+        dy.dget("key1.key2");
+        dy.get("key4").get(1);
+        dy.get("nope").get("deeper");
+        dy.dget("key1.key3");
+        dy.dget("key1.key2.foo");
+        dy.get("key4").get(5);
+
+        InMemoryDynamicMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.hits()).isEqualTo(8);
+        assertThat(snapshot.misses()).containsOnly(
+            entry("Missing", 2L),
+            entry("AbsentParent", 1L),
+            entry("Null", 1L),
+            entry("Barren", 1L));
+    }
+
+    @Test
+    public void getOrNullRecordedAsGet() {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        DynamicSnapshot.write(dy, snapshot);
+        List<Dynamic> dynamics = asList(
+            dy,
+            new JsonDynamic("{\"key1\":{\"key2\":\"hello\"},\"key4\":[1,2]}"),
+            DynamicSnapshot.open(ByteBuffer.wrap(snapshot.toByteArray())),
+            new XmlDynamic("<key1><key2>hello</key2></key1>"),
+            new XmlDynamic("<key1><key2>hello</key2></key1>").toDynamicTree());
+
+        for (Dynamic dynamic : dynamics) {
+            metrics.reset();
+            dynamic.get("key1").get("key2");
+            dynamic.get("key1").get("nope");
+            dynamic.get("key0");
+            dynamic.get("key1").get("key2").get("deeper");
+            InMemoryDynamicMetrics.Snapshot gets = metrics.snapshot();
+
+            metrics.reset();
+            dynamic.getOrNull("key1").getOrNull("key2");
+            dynamic.getOrNull("key1").getOrNull("nope");
+            assertThat(dynamic.has("key0")).isFalse();
+            dynamic.dgetOrNull("key1.key2").getOrNull("deeper");
+
+            assertThat(metrics.snapshot().hits()).as(dynamic.toString()).isEqualTo(gets.hits());
+            assertThat(metrics.snapshot().misses()).as(dynamic.toString()).isEqualTo(gets.misses());
+        }
+    }
+
+    @Test
+    public void xmlPathsRecordedPerStep() {
+        String xml = "<a><b><c>hello</c></b><b><c>bye</c></b></a>";
+        List<Dynamic> dynamics = asList(new XmlDynamic(xml), new XmlDynamic(xml).toDynamicTree());
+
+        for (Dynamic dynamic : dynamics) {
+            metrics.reset();
+            dynamic.dget("a.b.c");
+            dynamic.dget("a.b[1].c");
+            dynamic.dget("a.b.nope");
+            dynamic.dget("a.nope.c");
+            InMemoryDynamicMetrics.Snapshot dgets = metrics.snapshot();
+            assertThat(dgets.hits()).isEqualTo(9);
+
+            metrics.reset();
+            dynamic.get("a|b|c");
+            dynamic.get("a|b[1]|c");
+            dynamic.get("a|b|nope");
+            dynamic.get("a|nope|c");
+            assertThat(metrics.snapshot().hits()).as(dynamic.toString()).isEqualTo(dgets.hits());
+            assertThat(metrics.snapshot().misses()).as(dynamic.toString()).isEqualTo(dgets.misses());
+
+            metrics.reset();
+            dynamic.get(XmlPath.compile("a|b|c"));
+            dynamic.get(XmlPath.compile("a|b[1]|c"));
+            dynamic.get(XmlPath.compile("a|b|nope"));
+            dynamic.get(XmlPath.compile("a|nope|c"));
+            assertThat(metrics.snapshot().hits()).as(dynamic.toString()).isEqualTo(dgets.hits());
+            assertThat(metrics.snapshot().misses()).as(dynamic.toString()).isEqualTo(dgets.misses());
+        }
+    }
+
+    @Test
+    public void hitsPassChildren() {
+        List<String> paths = new ArrayList<>();
+        DynamicMetrics.register(new DynamicMetrics() {
+            @Override
+            public void hit(Dynamic child) {
+                paths.add(child.path().toString());
+            }
+        });
+
+        dy.dget("key1.key2");
+        assertThat(paths).containsExactly("root->key1", "root->key1->key2");
+    }
+
+    @Test
+    public void conversions() {
+        Converter.convert("123").maybe().intoInteger();
+        Converter.convert("abc").maybe().intoInteger();
+        Converter.convert("abc").intoDecimalWorks();
+        dy.get("key5").maybe().convert().intoLocalDateTime();
+
+        InMemoryDynamicMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.conversions()).containsOnly(entry("Integer", 1L), entry("LocalDateTime", 1L));
+        assertThat(snapshot.conversionFailures()).containsOnly(entry("Integer", 1L), entry("BigDecimal", 1L));
+    }
+
+    @Test
+    public void timeParses() {
+        ConverterTimeFormats.parse("2015-03-07T00:37:41.946");
+        ConverterTimeFormats.parse("07/03/2015 00:37");
+
+        InMemoryDynamicMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.timeParses())
+            .containsOnly(entry("ISO_PERMISSIVE", 1L), entry("DAY_MONTH_YEAR_PERMISSIVE_SLASH", 1L));
+        assertThat(snapshot.timeParseFailures())
+            .containsOnly(entry("ISO_PERMISSIVE", 1L), entry("DAY_MONTH_YEAR_PERMISSIVE_DASH", 1L));
+    }
+
+    @Test
+    public void xmlParses() {
+        new XmlDynamic("<product><id>123</id></product>");
+        new XmlDynamic("<product><id>456</id></product>");
+
+        InMemoryDynamicMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.xmlParses()).isEqualTo(2);
+        assertThat(snapshot.xmlParseNanos()).isPositive();
+    }
+
+    @Test
+    public void unregistered() {
+        DynamicMetrics.unregister();
+        dy.dget("key1.key2");
+        dy.get("nope");
+        Converter.convert("abc").maybe().intoInteger();
+
+        assertThat(metrics.snapshot().hits()).isZero();
+        assertThat(metrics.snapshot().misses()).isEmpty();
+        assertThat(metrics.snapshot().conversionFailures()).isEmpty();
+    }
+
+    @Test
+    public void reset() {
+        dy.dget("key1.key2");
+        metrics.reset();
+        assertThat(metrics.snapshot().hits()).isZero();
+    }
+}
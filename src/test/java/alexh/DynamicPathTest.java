@@ -0,0 +1,73 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicPath;
+import alexh.weak.XmlDynamic;
+import org.junit.jupiter.api.Test;
+
+public class DynamicPathTest {
+
+    private final Dynamic dy = Dynamic.from(new Fluent.HashMap<>()
+        .append("key1", new Fluent.HashMap<>()
+            .append("key2", asList("a", new Fluent.HashMap<>().append(3, "three")))
+            .append("key6", null)));
+
+    @Test
+    public void rootPath() {
+        assertThat(dy.path().toString()).isEqualTo("root");
+        assertThat(dy.path().depth()).isEqualTo(0);
+        assertThat(dy.path().parent()).isNull();
+        assertThat(dy.path().keys()).containsExactly("root");
+        assertThat(Dynamic.from(null).path().toString()).isEqualTo("root");
+    }
+
+    @Test
+    public void childPath() {
+        Dynamic child = dy.dget("key1.key2.1.3");
+        DynamicPath path = child.path();
+
+        assertThat(path.toString()).isEqualTo("root->key1->key2->1->3");
+        assertThat(path.keys()).containsExactly("root", "key1", "key2", 1, "3");
+        assertThat(path.key()).isEqualTo("3");
+        assertThat(path.depth()).isEqualTo(4);
+        assertThat(child.toString()).isEqualTo("root->key1->key2->1->3:String");
+    }
+
+    @Test
+    public void childPathsShareParentPath() {
+        Dynamic list = dy.dget("key1.key2");
+
+        assertThat(list.get(0).path().parent()).isSameAs(list.path());
+        assertThat(list.get(1).path().parent()).isSameAs(list.get(0).path().parent());
+        assertThat(list.path()).isSameAs(list.path());
+    }
+
+    @Test
+    public void absencePath() {
+        assertThat(dy.dget("key1.key6.foo.bar").path().toString()).isEqualTo("root->key1->key6->foo->bar");
+        assertThat(dy.dget("key1.nope").path().keys()).containsExactly("root", "key1", "nope");
+        assertThat(Dynamic.from(null).get("foo").path().toString()).isEqualTo("root->foo");
+    }
+
+    @Test
+    public void xmlPath() {
+        XmlDynamic xml = new XmlDynamic("<product><investment id=\"1\"><info>i</info></investment></product>");
+
+        assertThat(xml.get("investment").get("@id").path().toString()).isEqualTo("root->investment->@id");
+        assertThat(xml.toDynamicTree().dget("investment.info").path().toString()).isEqualTo("root->investment->info");
+    }
+
+    @Test
+    public void equality() {
+        Dynamic other = Dynamic.from(new Fluent.HashMap<>()
+            .append("key1", new Fluent.HashMap<>()
+                .append("key2", asList("b", "c"))));
+
+        assertThat(dy.dget("key1.key2.1").path()).isEqualTo(other.dget("key1.key2.1").path());
+        assertThat(dy.dget("key1.key2.1").path().hashCode()).isEqualTo(other.dget("key1.key2.1").path().hashCode());
+        assertThat(dy.dget("key1.key2.1").path()).isNotEqualTo(other.dget("key1.key2.0").path());
+        assertThat(dy.dget("key1.key2").path()).isNotEqualTo(other.dget("key1.key2.0").path());
+    }
+}
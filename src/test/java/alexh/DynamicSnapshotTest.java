@@ -0,0 +1,125 @@
+package alexh;
+
+import static alexh.JsonDynamicTest.JSON;
+import static alexh.JsonDynamicTest.PATHS;
+import static alexh.JsonDynamicTest.valueOrMessage;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicSnapshot;
+import alexh.weak.JsonDynamic;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DynamicSnapshotTest {
+
+    private static Dynamic snapshotOf(Dynamic dynamic) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DynamicSnapshot.write(dynamic, out);
+        return DynamicSnapshot.open(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void sameAsSource(@TempDir Path dir) {
+        Dynamic source = Dynamic.from(new JsonDynamic(JSON).asObject());
+        Path file = dir.resolve("data.snapshot");
+        DynamicSnapshot.write(source, file);
+        Dynamic snapshot = DynamicSnapshot.open(file);
+
+        for (String path : PATHS) {
+            Dynamic expected = source.dget(path);
+            Dynamic actual = snapshot.dget(path);
+
+            assertThat(actual.isPresent()).as(path).isEqualTo(expected.isPresent());
+            assertThat(valueOrMessage(actual)).as(path).isEqualTo(valueOrMessage(expected));
+            assertThat(actual.toString()).as(path).isEqualTo(expected.toString());
+            assertThat(actual.key().asObject()).as(path).isEqualTo(expected.key().asObject());
+            assertThat(actual.hasChildren()).as(path).isEqualTo(expected.hasChildren());
+            assertThat(snapshot.has(path)).as(path).isEqualTo(expected.isPresent());
+            if (expected.isPresent()) assertThat(snapshot.dgetOrNull(path)).as(path).isEqualTo(actual);
+        }
+        assertThat(snapshot.asObject()).isEqualTo(source.asObject());
+        assertThat(snapshot.allChildren().map(Dynamic::toString).collect(toList()))
+            .isEqualTo(source.allChildren().map(Dynamic::toString).collect(toList()));
+    }
+
+    @Test
+    public void largeMaps() {
+        Map<String, Object> map = new HashMap<>();
+        IntStream.range(0, 1000).forEach(i -> map.put("key-" + i, i));
+        Dynamic snapshot = snapshotOf(Dynamic.from(map));
+
+        IntStream.range(0, 1000).forEach(i -> assertThat(snapshot.get("key-" + i).asObject()).isEqualTo(i));
+        assertThat(snapshot.get("key-1000").isPresent()).isFalse();
+        assertThat(snapshot.children().map(c -> c.key().asString()).collect(toList()))
+            .isEqualTo(asList(map.keySet().toArray()));
+    }
+
+    @Test
+    public void valueTypes() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("short", (short) 12);
+        map.put("float", 1.5f);
+        map.put("big", new BigInteger("123456789012345678901234567890"));
+        map.put(3, "numeric key");
+        map.put("set", new LinkedHashSet<>(asList("a", "b")));
+        map.put("array", new Object[]{ 1, null, 3L });
+        map.put("other", Thread.State.NEW);
+        Dynamic snapshot = snapshotOf(Dynamic.from(map));
+
+        assertThat(snapshot.get("short").asObject()).isEqualTo(12);
+        assertThat(snapshot.get("float").asObject()).isEqualTo(1.5d);
+        assertThat(snapshot.get("big").asObject()).isEqualTo(new BigDecimal("123456789012345678901234567890"));
+        assertThat(snapshot.get(3).asString()).isEqualTo("numeric key");
+        assertThat(snapshot.get("3").asString()).isEqualTo("numeric key");
+        assertThat(snapshot.get("set").asList()).containsExactly("a", "b");
+        assertThat(snapshot.get("array").get(2).asObject()).isEqualTo(3L);
+        assertThat(snapshot.get("array").get(1).isPresent()).isFalse();
+        assertThat(snapshot.get("other").asString()).isEqualTo("NEW");
+
+        assertThat(snapshot.get("set").is(java.util.List.class)).isTrue();
+        assertThat(snapshot.get("big").is(Number.class)).isTrue();
+        assertThat(snapshot.get("big").isString()).isFalse();
+    }
+
+    @Test
+    public void topLevelValues() {
+        assertThat(snapshotOf(Dynamic.from("hello")).asString()).isEqualTo("hello");
+        assertThat(snapshotOf(Dynamic.from(null)).isPresent()).isFalse();
+        assertThat(snapshotOf(Dynamic.from(asList())).toString()).isEqualTo("root:Empty-List");
+        assertThat(snapshotOf(Dynamic.from(new HashMap<>())).get("a").isPresent()).isFalse();
+    }
+
+    @Test
+    public void equality() {
+        Dynamic snapshot = snapshotOf(Dynamic.from(new JsonDynamic(JSON).asObject()));
+        Dynamic other = snapshotOf(Dynamic.from(new JsonDynamic(JSON).asObject()));
+        assertThat(snapshot).isEqualTo(other);
+        assertThat(snapshot.hashCode()).isEqualTo(other.hashCode());
+        assertThat(snapshot.dget("product.investments.1")).isEqualTo(other.dget("product.investments.1"));
+        assertThat(snapshot.dget("product.investments.1")).isNotEqualTo(other.dget("product.investments.0"));
+    }
+
+    @Test
+    public void invalid() {
+        assertThatThrownBy(() -> DynamicSnapshot.open(ByteBuffer.wrap("{\"not\": \"a snapshot\"}".getBytes())))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        Map<Object, Object> ambiguous = new HashMap<>();
+        ambiguous.put(1, "a");
+        ambiguous.put("1", "b");
+        assertThatThrownBy(() -> snapshotOf(Dynamic.from(ambiguous))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,170 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class DynamicXmlEqualityTest {
+
+    private static final List<String> CORPUS = asList(
+        DynamicXmlTest.XML,
+        DynamicXmlNamespaceTest.XML,
+        XmlExtractorTest.XML,
+        "<msg><key5>1</key5><key5>2</key5><key9>hello</key9><key9/><key9></key9><key1><key2>hello</key2></key1></msg>");
+
+    private static List<XmlDynamic> allOf(String xml) {
+        XmlDynamic root = new XmlDynamic(xml);
+        return Stream.concat(Stream.of(root), root.allChildren())
+            .map(XmlDynamic.class::cast)
+            .collect(toList());
+    }
+
+    /**
+     * Serialized xml with whitespace normalized as structural equality. Serializing may add namespace declarations
+     * to the DOM, affecting later serializations, so declarations are removed as they're ignored by equality too
+     */
+    private static List<String> serializedOf(String xml) {
+        return allOf(xml).stream()
+            .map(node -> node.getClass().getSimpleName() + node.fullXml()
+                .replaceAll("\\s+xmlns(:\\w+)?=\"[^\"]*\"", "")
+                .replaceAll("\\s+", " ")
+                .replace("> ", ">")
+                .replace(" <", "<"))
+            .collect(toList());
+    }
+
+    /** Structural equality should match the previous behaviour of comparing serialized xml, modulo whitespace */
+    @Test
+    public void equalityMatchesSerializedComparison() {
+        List<XmlDynamic> all = CORPUS.stream().flatMap(xml -> allOf(xml).stream()).collect(toList());
+        List<XmlDynamic> reparsed = CORPUS.stream().flatMap(xml -> allOf(xml).stream()).collect(toList());
+        List<String> serialized = CORPUS.stream().flatMap(xml -> serializedOf(xml).stream()).collect(toList());
+
+        for (int i = 0; i < all.size(); i++) {
+            for (int j = 0; j < reparsed.size(); j++) {
+                boolean serializedEqual = serialized.get(i).equals(serialized.get(j));
+                assertThat(all.get(i).equals(reparsed.get(j)))
+                    .as(serialized.get(i) + " equals " + serialized.get(j))
+                    .isEqualTo(serializedEqual);
+                if (serializedEqual) {
+                    assertThat(all.get(i).hashCode()).as(serialized.get(i) + " hash")
+                        .isEqualTo(reparsed.get(j).hashCode());
+                }
+            }
+        }
+    }
+
+    /** Pairs equal structurally that the previous serialized comparison, {@code fullXml().equals}, held unequal */
+    @Test
+    public void differencesFromSerializedComparison() {
+        List<String[]> pairs = new ArrayList<>();
+        for (String xml : CORPUS) {
+            // formatting whitespace between elements
+            pairs.add(new String[]{ xml, xml.replace("><", ">\n  <") });
+        }
+        pairs.add(new String[]{ "<a x=\"1\"><b>  hello\n there </b></a>", "<a x=\"1\"><b>hello there</b></a>" });
+        pairs.add(new String[]{ "<a>hello <![CDATA[there]]></a>", "<a>hello there</a>" });
+        pairs.add(new String[]{ "<a:el xmlns:a=\"http://example.com\">hi</a:el>",
+            "<b:el xmlns:b=\"http://example.com\">hi</b:el>" });
+        pairs.add(new String[]{ "<el xmlns:unused=\"http://example.com\">hi</el>", "<el>hi</el>" });
+
+        for (String[] pair : pairs) {
+            XmlDynamic a = new XmlDynamic(pair[0]);
+            XmlDynamic b = new XmlDynamic(pair[1]);
+            assertThat(a.fullXml()).as("serialized").isNotEqualTo(b.fullXml());
+            assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+        }
+    }
+
+    @Test
+    public void childHashesMatchAfterParentHashed() {
+        for (String xml : CORPUS) {
+            List<XmlDynamic> hashedAfterRoot = allOf(xml);
+            hashedAfterRoot.get(0).hashCode();
+            List<XmlDynamic> hashedAlone = allOf(xml);
+
+            for (int i = hashedAfterRoot.size() - 1; i >= 0; i--) {
+                assertThat(hashedAfterRoot.get(i).hashCode()).as(hashedAfterRoot.get(i).toString())
+                    .isEqualTo(hashedAlone.get(i).hashCode());
+                assertThat(hashedAfterRoot.get(i)).isEqualTo(hashedAlone.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void attributeOrderIgnored() {
+        assertThat(new XmlDynamic("<a x=\"1\" y=\"2\"><b/></a>"))
+            .isEqualTo(new XmlDynamic("<a y=\"2\" x=\"1\"><b/></a>"))
+            .hasSameHashCodeAs(new XmlDynamic("<a y=\"2\" x=\"1\"><b/></a>"));
+    }
+
+    @Test
+    public void namespacePrefixesIgnored() {
+        assertThat(new XmlDynamic("<a:el xmlns:a=\"http://example.com\">hi</a:el>"))
+            .isEqualTo(new XmlDynamic("<b:el xmlns:b=\"http://example.com\">hi</b:el>"))
+            .isNotEqualTo(new XmlDynamic("<b:el xmlns:b=\"http://example.com/other\">hi</b:el>"))
+            .isNotEqualTo(new XmlDynamic("<el>hi</el>"));
+    }
+
+    @Test
+    public void textCoalesced() {
+        assertThat(new XmlDynamic("<a>hello <![CDATA[there]]></a>"))
+            .isEqualTo(new XmlDynamic("<a>hello there</a>"))
+            .hasSameHashCodeAs(new XmlDynamic("<a>hello there</a>"));
+    }
+
+    @Test
+    public void whitespaceNormalized() {
+        assertThat(new XmlDynamic("<a>\n  <b>  hello\n   there </b>\n  <c x=\"1\"/>\n</a>"))
+            .isEqualTo(new XmlDynamic("<a><b>hello there</b><c x=\"1\"/></a>"))
+            .hasSameHashCodeAs(new XmlDynamic("<a><b>hello there</b><c x=\"1\"/></a>"))
+            .isNotEqualTo(new XmlDynamic("<a><b>hellothere</b><c x=\"1\"/></a>"))
+            .isNotEqualTo(new XmlDynamic("<a><b>hello there</b>text<c x=\"1\"/></a>"));
+    }
+
+    @Test
+    public void modifiedDocumentsRehashed() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(new InputSource(new StringReader("<a><b>1</b></a>")));
+        int before = new XmlDynamic(document.getDocumentElement()).hashCode();
+
+        document.getElementsByTagName("b").item(0).setTextContent("2");
+
+        assertThat(new XmlDynamic(document.getDocumentElement()))
+            .isEqualTo(new XmlDynamic("<a><b>2</b></a>"))
+            .hasSameHashCodeAs(new XmlDynamic("<a><b>2</b></a>"));
+        assertThat(new XmlDynamic(document.getDocumentElement()).hashCode()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void differences() {
+        assertThat(new XmlDynamic("<a x=\"1\"/>"))
+            .isNotEqualTo(new XmlDynamic("<a x=\"2\"/>"))
+            .isNotEqualTo(new XmlDynamic("<a x=\"1\" y=\"1\"/>"))
+            .isNotEqualTo(new XmlDynamic("<a x=\"1\">text</a>"))
+            .isNotEqualTo(new XmlDynamic("<b x=\"1\"/>"));
+    }
+
+    @Test
+    public void hashSetDeduplication() {
+        Set<Dynamic> set = new HashSet<>();
+        new XmlDynamic("<list><item>1</item><item>2</item><item>1</item><item>2</item><item>3</item></list>")
+            .get("list")
+            .children()
+            .forEach(set::add);
+
+        assertThat(set.stream().map(Dynamic::asString).sorted().collect(toList())).containsExactly("1", "2", "3");
+    }
+}
@@ -4,9 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import alexh.weak.Dynamic;
 import alexh.weak.XmlDynamic;
+import java.io.StringReader;
 import java.util.NoSuchElementException;
+import javax.xml.parsers.DocumentBuilderFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 
 public class DynamicXmlErrorMessageTest {
 
@@ -111,4 +115,34 @@ public class DynamicXmlErrorMessageTest {
         assertThat(message.toLowerCase()).as("Should describe the end point").contains("xml");
         System.out.println(message);
     }
+
+    @Test
+    public void message_wideRepeatedElements() {
+        StringBuilder xml = new StringBuilder("<msg><first/>");
+        for (int i = 0; i < 5000; i++) xml.append("<item id=\"").append(i).append("\">v</item>");
+        xml.append("<last>end</last></msg>");
+        Dynamic msg = new XmlDynamic(xml.toString()).get("msg");
+
+        String message = errorMessage(() -> msg.get("nope").asObject());
+        assertThat(message).as("Should describe repeated keys with their index range")
+            .contains("Xml[first, last, item[0..4999]]");
+        assertThat(msg.get("item[11]").toString()).isEqualTo("item[11]:Xml[@id]");
+        System.out.println(message.substring(0, Math.min(message.length(), 300)));
+    }
+
+    @Test
+    public void message_modifiedDocument() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder()
+            .parse(new InputSource(new StringReader("<msg><key1/></msg>")));
+        assertThat(new XmlDynamic(document.getDocumentElement()).get("msg").toString()).isEqualTo("msg:Xml[key1]");
+
+        document.getDocumentElement().appendChild(document.createElementNS(null, "key2"));
+
+        assertThat(new XmlDynamic(document.getDocumentElement()).get("msg").toString())
+            .isEqualTo("msg:Xml[key1, key2]");
+        assertThat(document.getDocumentElement().getFirstChild().getUserData(XmlDynamic.class.getName() + ".description"))
+            .isNull();
+    }
 }
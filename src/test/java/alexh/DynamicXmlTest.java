@@ -4,13 +4,23 @@ import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import alexh.weak.Converter;
 import alexh.weak.Dynamic;
 import alexh.weak.XmlDynamic;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.xml.sax.InputSource;
 
 public class DynamicXmlTest {
@@ -210,12 +220,118 @@ public class DynamicXmlTest {
         }
     }
 
+    @Test
+    public void writeToImplementation() {
+        StringWriter writer = new StringWriter();
+        ((XmlDynamic) root).writeTo(writer);
+        assertThat(writer.toString()).isEqualTo(((XmlDynamic) root).fullXml());
+
+        XmlDynamic content2 = (XmlDynamic) root.get("xml|content_2");
+        StringBuilder builder = new StringBuilder();
+        content2.writeTo(builder);
+        assertThat(builder.toString()).isEqualTo(content2.fullXml());
+    }
+
+    @Test
+    public void asCharSequence() {
+        for (String path : asList("xml|content_1|int_element", "xml|content_2", "xml|content_1|empty_element",
+            "xml|content_2|attr_clasher|@age")) {
+            XmlDynamic xml = (XmlDynamic) root.get(path);
+            assertThat(xml.asCharSequence().toString()).as(path).isEqualTo(xml.asString());
+        }
+        assertThat(((XmlDynamic) root).asCharSequence().toString()).isEqualTo(root.asString());
+        assertThat(Converter.convert(((XmlDynamic) root.get("xml|content_1|int_element")).asCharSequence()).intoLong())
+            .isEqualTo(12345);
+    }
+
+    @Test
+    public void textReader() throws IOException {
+        StringBuilder cdata = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) cdata.append("QUJD");
+        XmlDynamic attachment = (XmlDynamic) new XmlDynamic("<msg><data><![CDATA[" + cdata + "]]></data></msg>")
+            .get("msg|data");
+
+        Reader reader = attachment.textReader();
+        StringBuilder read = new StringBuilder();
+        char[] buffer = new char[1024];
+        for (int n; (n = reader.read(buffer)) != -1;) read.append(buffer, 0, n);
+        assertThat(read.toString()).isEqualTo(cdata.toString());
+        assertThat(reader.read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void largeCdataCharSequence() throws IOException {
+        StringBuilder cdata = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) cdata.append("QUJD");
+        XmlDynamic attachment = (XmlDynamic) new XmlDynamic("<msg><data><![CDATA[" + cdata + "]]></data></msg>")
+            .get("msg|data");
+
+        CharSequence chars = attachment.asCharSequence();
+        assertThat(chars).isInstanceOf(String.class);
+        assertThat(chars.length()).isEqualTo(cdata.length());
+        assertThat(chars.toString()).isEqualTo(cdata.toString());
+        // the DOM's own value, not a copy
+        assertThat(attachment.asCharSequence()).isSameAs(chars);
+
+        Reader reader = attachment.textReader();
+        assertThat(reader.skip(cdata.length() - 4)).isEqualTo(cdata.length() - 4);
+        char[] tail = new char[8];
+        assertThat(reader.read(tail)).isEqualTo(4);
+        assertThat(new String(tail, 0, 4)).isEqualTo("QUJD");
+    }
+
+    @Test
+    public void mixedContentCharSequence() throws IOException {
+        XmlDynamic body = (XmlDynamic) new XmlDynamic("<msg><body><p>one</p><p a=\"1\">two</p></body></msg>")
+            .get("msg|body");
+
+        CharSequence chars = body.asCharSequence();
+        assertThat(chars).isInstanceOf(StringBuilder.class);
+        assertThat(chars.toString()).isEqualTo("<p>one</p><p a=\"1\">two</p>").isEqualTo(body.asString());
+
+        Reader reader = body.textReader();
+        StringBuilder read = new StringBuilder();
+        char[] buffer = new char[5];
+        for (int n; (n = reader.read(buffer)) != -1;) read.append(buffer, 0, n);
+        assertThat(read.toString()).isEqualTo(body.asString());
+    }
+
     @Test
     public void constructors() {
         assertThat(root).isEqualTo(new XmlDynamic(new StringReader(XML)));
         assertThat(root).isEqualTo(new XmlDynamic(new InputSource(new StringReader(XML))));
     }
 
+    @Test
+    public void byteConstructors() {
+        byte[] bytes = XML.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        direct.flip();
+
+        assertThat(root).isEqualTo(new XmlDynamic(new ByteArrayInputStream(bytes)));
+        assertThat(root).isEqualTo(new XmlDynamic(bytes));
+        assertThat(root).isEqualTo(new XmlDynamic(ByteBuffer.wrap(bytes)));
+        assertThat(root).isEqualTo(new XmlDynamic(direct));
+        assertThat(direct.remaining()).as("buffer should not be consumed").isEqualTo(bytes.length);
+    }
+
+    @Test
+    public void pathConstructor(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("test.xml"), XML.getBytes(StandardCharsets.UTF_8));
+        assertThat(root).isEqualTo(new XmlDynamic(file));
+    }
+
+    @Test
+    public void byteConstructorsDetectEncoding() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><msg>caf\u00e9 \u20ac</msg>";
+        assertThat(new XmlDynamic(xml.getBytes(StandardCharsets.UTF_16)).get("msg").asString())
+            .isEqualTo("caf\u00e9 \u20ac");
+
+        String latin = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><msg>caf\u00e9</msg>";
+        assertThat(new XmlDynamic(ByteBuffer.wrap(latin.getBytes(StandardCharsets.ISO_8859_1))).get("msg").asString())
+            .isEqualTo("caf\u00e9");
+    }
+
     @Test
     public void shouldProvideNameFilterPredicateGenerator() {
         List<String> els = root.get("xml|content_1")
@@ -227,6 +343,26 @@ public class DynamicXmlTest {
         assertThat(els).isEqualTo(asList("multi_empty_element", "multi_empty_element[1]", "multi_empty_element[2]"));
     }
 
+    @Test
+    public void hasChildren() {
+        assertThat(root.hasChildren()).isTrue();
+        assertThat(root.get("xml|content_1").hasChildren()).isTrue();
+        assertThat(root.get("xml|content_1|just_attrs").hasChildren()).isTrue();
+        assertThat(root.get("xml|content_1|empty_element").hasChildren()).isFalse();
+        assertThat(root.get("xml|content_1|int_element").hasChildren()).isFalse();
+        assertThat(root.get("xml|content_1|just_attrs|hello").hasChildren()).isFalse();
+        assertThat(root.get("xml|content_1|nope").hasChildren()).isFalse();
+    }
+
+    @Test
+    public void isLeaf() {
+        assertThat(root.get("xml|content_1|int_element").isLeaf()).isTrue();
+        assertThat(root.get("xml|content_1|empty_element").isLeaf()).isTrue();
+        assertThat(root.get("xml|content_1|just_attrs|@foo").isLeaf()).isTrue();
+        assertThat(root.get("xml|content_1").isLeaf()).isFalse();
+        assertThat(root.get("xml|content_1|nope").isLeaf()).isFalse();
+    }
+
     @Test
     public void depthSearchTest() {
         Dynamic match = root.allChildrenDepthFirst()
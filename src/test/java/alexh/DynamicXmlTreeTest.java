@@ -0,0 +1,85 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import alexh.weak.XmlPath;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class DynamicXmlTreeTest {
+
+    private static void assertSameAsXmlDynamic(String xml) {
+        Dynamic root = new XmlDynamic(xml);
+        Dynamic tree = new XmlDynamic(xml).toDynamicTree();
+        for (String path : XmlPathTest.PATHS) {
+            Dynamic expected = root.get(path);
+            Dynamic actual = tree.get(path);
+
+            assertThat(actual.isPresent()).as(path).isEqualTo(expected.isPresent());
+            assertThat(XmlPathTest.valueOrMessage(actual)).as(path)
+                .isEqualTo(XmlPathTest.valueOrMessage(expected));
+            assertThat(actual.toString()).as(path).isEqualTo(expected.toString());
+            assertThat(actual.key().asString()).as(path).isEqualTo(expected.key().asString());
+            assertThat(tree.get(XmlPath.compile(path)).toString()).as(path).isEqualTo(expected.toString());
+
+            for (Dynamic orNull : asList(root.getOrNull(path), tree.getOrNull(path),
+                root.getOrNull(XmlPath.compile(path)), tree.getOrNull(XmlPath.compile(path)))) {
+                if (expected.isPresent()) assertThat(orNull).as(path).hasToString(expected.toString());
+                else assertThat(orNull).as(path).isNull();
+            }
+        }
+    }
+
+    @Test
+    public void sameAsXmlDynamic() {
+        assertSameAsXmlDynamic(DynamicXmlTest.XML);
+        assertSameAsXmlDynamic(DynamicXmlNamespaceTest.XML);
+    }
+
+    @Test
+    public void children() {
+        Dynamic xml = new XmlDynamic(DynamicXmlTest.XML).get("xml|content_1");
+        Dynamic tree = new XmlDynamic(DynamicXmlTest.XML).toDynamicTree().get("xml|content_1");
+
+        assertThat(tree.children().map(c -> c.key().asString()).collect(toList()))
+            .isEqualTo(xml.children().map(c -> c.key().asString()).collect(toList()));
+        assertThat(tree.hasChildren()).isTrue();
+        assertThat(tree.get("int_element").isLeaf()).isTrue();
+    }
+
+    @Test
+    public void readsAreCached() {
+        Dynamic tree = new XmlDynamic(DynamicXmlTest.XML).toDynamicTree();
+        Dynamic element = tree.get("xml|content_1|int_element", "|");
+
+        assertThat(tree.get("xml|content_1|int_element", "|")).isSameAs(element);
+        assertThat(tree.get("xml|content_1|int_element")).isSameAs(element);
+        assertThat(tree.get("xml[0]|content_1[0]|int_element[0]")).isSameAs(element);
+        assertThat(element.asString()).isEqualTo("12345");
+    }
+
+    @Test
+    public void equality() {
+        Dynamic tree = new XmlDynamic(DynamicXmlTest.XML).toDynamicTree();
+        assertThat(tree).isEqualTo(new XmlDynamic(DynamicXmlTest.XML).toDynamicTree());
+        assertThat(tree.hashCode()).isEqualTo(new XmlDynamic(DynamicXmlTest.XML).hashCode());
+        assertThat(tree.get("xml|content_1", "|"))
+            .isEqualTo(new XmlDynamic(DynamicXmlTest.XML).toDynamicTree().get("xml|content_1"))
+            .isNotEqualTo(tree.get("xml|content_2", "|"));
+    }
+
+    @Test
+    public void threadSafe() {
+        Dynamic tree = new XmlDynamic(DynamicXmlTest.XML).toDynamicTree();
+        List<CompletableFuture<String>> results = IntStream.range(0, 50)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> tree.get("xml|content_1|int_element").asString()))
+            .collect(toList());
+
+        assertThat(results.stream().map(CompletableFuture::join)).allMatch("12345"::equals);
+    }
+}
@@ -0,0 +1,86 @@
+package alexh;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class DynamicXmlXPathTest {
+
+    XmlDynamic root = new XmlDynamic(DynamicXmlTest.XML);
+
+    @Test
+    public void elementResults() {
+        List<String> values = root.xpath("//multi_element").map(Dynamic::asString).collect(toList());
+        assertThat(values).containsExactly("123", "3214");
+    }
+
+    @Test
+    public void resultsAreKeyedAsGet() {
+        Dynamic second = root.xpath("//multi_element[2]").findFirst().get();
+        assertThat(second.key().asString()).isEqualTo("multi_element[1]");
+        assertThat(second).isEqualTo(root.get("xml|content_2|multi_element[1]"));
+        assertThat(second.toString()).isEqualTo(root.get("xml|content_2|multi_element[1]").toString());
+    }
+
+    @Test
+    public void attributeResults() {
+        Dynamic attr = root.xpath("//attr_clasher/@age").findFirst().get();
+        assertThat(attr.asString()).isEqualTo("old");
+        assertThat(attr.key().asString()).isEqualTo("@age");
+    }
+
+    @Test
+    public void relativeToTopLevelDocument() {
+        assertThat(root.xpath("xml/content_1/int_element").map(Dynamic::asString).collect(toList()))
+            .containsExactly("12345");
+    }
+
+    @Test
+    public void relativeToChild() {
+        Dynamic content1 = root.get("xml|content_1");
+        assertThat(((XmlDynamic) content1).xpath("int_element").map(Dynamic::asString).collect(toList()))
+            .containsExactly("12345");
+        assertThat(((XmlDynamic) content1).xpath("*[starts-with(local-name(), 'multi')]").count())
+            .isEqualTo(3);
+    }
+
+    @Test
+    public void resultsHaveParentChainErrorMessages() {
+        Dynamic intElement = root.xpath("//int_element").findFirst().get();
+        assertThatThrownBy(() -> intElement.get("foo").asObject())
+            .isInstanceOf(NoSuchElementException.class)
+            .hasMessageContaining("root->xml->content_1->*int_element*->foo");
+    }
+
+    @Test
+    public void nonElementResultsIgnored() {
+        assertThat(root.xpath("//int_element/text()").count()).isZero();
+    }
+
+    @Test
+    public void noResults() {
+        assertThat(root.xpath("//nothing").count()).isZero();
+    }
+
+    @Test
+    public void invalidExpressions() {
+        assertThatThrownBy(() -> root.xpath("//[").count()).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> root.xpath("count(//*)").count()).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    public void concurrentUse() {
+        List<CompletableFuture<Long>> results = IntStream.range(0, 50)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> root.xpath("//multi_empty_element").count()))
+            .collect(toList());
+
+        assertThat(results.stream().map(CompletableFuture::join)).allMatch(count -> count == 3);
+    }
+}
@@ -75,4 +75,40 @@ public class GetSplittingTest {
     public void dgetConvenienceMethod() {
         assertThat(dy.dget("key5.3.55").asObject()).isEqualTo("blah");
     }
+
+    @Test
+    public void emptyKeysSplitAsStringSplit() {
+        assertThat(dy.dget("key1.key2.").asObject()).isEqualTo("hello");
+        assertThat(dy.dget("key1..key2").isPresent()).isFalse();
+        assertThat(dy.dget("..")).isSameAs(dy);
+        assertThat(dy.get("key1<><>", "<>").isMap()).isTrue();
+    }
+
+    @Test
+    public void getOrNull() {
+        assertThat(dy.getOrNull("key1").isMap()).isTrue();
+        assertThat(dy.getOrNull("nope")).isNull();
+        assertThat(dy.dgetOrNull("key5.3.55").asObject()).isEqualTo("blah");
+        assertThat(dy.dgetOrNull("key5.3.55")).isEqualTo(dy.dget("key5.3.55"));
+        assertThat(dy.dgetOrNull("key5.3.55").toString()).isEqualTo(dy.dget("key5.3.55").toString());
+        assertThat(dy.dgetOrNull("key1.key3.key6")).isNull();
+        assertThat(dy.dgetOrNull("key1.key3.key6.foo")).isNull();
+        assertThat(dy.dgetOrNull("key5.9")).isNull();
+        assertThat(dy.dgetOrNull("key5.foo")).isNull();
+        assertThat(dy.dgetOrNull("key8.0")).isNull();
+        assertThat(dy.dgetOrNull("key9.1")).isNull();
+        assertThat(dy.dgetOrNull("key1.key2.foo")).isNull();
+        assertThat(Dynamic.from(null).dgetOrNull("foo")).isNull();
+        assertThat(Dynamic.from(null).dgetOrNull("")).isNull();
+        assertThat(Dynamic.from(new Fluent.HashMap<>().append(asList("a"), 1)).getOrNull("[a]").asObject()).isEqualTo(1);
+    }
+
+    @Test
+    public void has() {
+        assertTrue(dy.has("key1.key3.key7.hello"));
+        assertTrue(dy.has("key5.3.55"));
+        assertFalse(dy.has("key1.key3.key6"));
+        assertFalse(dy.has("key1.nope.key6"));
+        assertFalse(dy.get("key1").get("nope").has("key6"));
+    }
 }
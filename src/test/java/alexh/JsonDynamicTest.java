@@ -0,0 +1,231 @@
+package alexh;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.Dynamic;
+import alexh.weak.JsonDynamic;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JsonDynamicTest {
+
+    static final String JSON = "{\n" +
+        "  \"product\": {\n" +
+        "    \"name\": \"some \\\"name\\\" \\u00e9\\n\",\n" +
+        "    \"investments\": [\n" +
+        "      {\"id\": \"inv-0\", \"amount\": 12.5, \"tags\": []},\n" +
+        "      {\"id\": \"inv-1\", \"amount\": 1425688985487, \"tags\": [\"a\", \"b\", \"c\"]},\n" +
+        "      null\n" +
+        "    ],\n" +
+        "    \"active\": true,\n" +
+        "    \"missing\": null,\n" +
+        "    \"empty\": {},\n" +
+        "    \"count\": 3,\n" +
+        "    \"huge\": 123456789012345678901234567890,\n" +
+        "    \"unicode\": \"é中\"\n" +
+        "  },\n" +
+        "  \"1\": \"numeric key\"\n" +
+        "}";
+
+    static final List<String> PATHS = asList(
+        "product.name",
+        "product.investments.0.id",
+        "product.investments.1.amount",
+        "product.investments.1.tags.2",
+        "product.investments.0.tags.0",
+        "product.investments.2.id",
+        "product.investments.3",
+        "product.investments.foo",
+        "product.active",
+        "product.active.foo",
+        "product.missing",
+        "product.missing.foo",
+        "product.empty.foo",
+        "product.count",
+        "product.huge",
+        "product.unicode",
+        "product.nope.nope",
+        "1",
+        "product");
+
+    static Object valueOrMessage(Dynamic dynamic) {
+        try { return dynamic.asObject(); }
+        catch (NoSuchElementException ex) { return ex.getMessage(); }
+    }
+
+    @Test
+    public void sameAsDecodedMap() {
+        Dynamic json = new JsonDynamic(JSON);
+        Dynamic map = Dynamic.from(new JsonDynamic(JSON).asObject());
+
+        for (String path : PATHS) {
+            Dynamic expected = map.dget(path);
+            Dynamic actual = json.dget(path);
+
+            assertThat(actual.isPresent()).as(path).isEqualTo(expected.isPresent());
+            assertThat(valueOrMessage(actual)).as(path).isEqualTo(valueOrMessage(expected));
+            assertThat(actual.toString()).as(path).isEqualTo(expected.toString());
+            assertThat(actual.key().asObject()).as(path).isEqualTo(expected.key().asObject());
+            assertThat(actual.hasChildren()).as(path).isEqualTo(expected.hasChildren());
+            assertThat(json.has(path)).as(path).isEqualTo(expected.isPresent());
+            if (expected.isPresent()) assertThat(json.dgetOrNull(path).toString()).as(path).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void values() {
+        Dynamic json = new JsonDynamic(JSON.getBytes(UTF_8));
+
+        assertThat(json.dget("product.name").asString()).isEqualTo("some \"name\" é\n");
+        assertThat(json.dget("product.unicode").asString()).isEqualTo("é中");
+        assertThat(json.dget("product.count").asObject()).isEqualTo(3);
+        assertThat(json.dget("product.investments.1.amount").asObject()).isEqualTo(1425688985487L);
+        assertThat(json.dget("product.investments.0.amount").asObject()).isEqualTo(12.5d);
+        assertThat(json.dget("product.huge").asObject()).isEqualTo(new BigDecimal("123456789012345678901234567890"));
+        assertThat(json.dget("product.active").asObject()).isEqualTo(true);
+        assertThat(json.get("product").get("investments").get(1).get("tags").asList()).containsExactly("a", "b", "c");
+        assertThat(json.dget("product.investments.1.amount").convert().intoLocalDateTime()).isNotNull();
+    }
+
+    @Test
+    public void types() {
+        Dynamic json = new JsonDynamic(JSON);
+        assertThat(json.isMap()).isTrue();
+        assertThat(json.dget("product.investments").isList()).isTrue();
+        assertThat(json.dget("product.name").isString()).isTrue();
+        assertThat(json.dget("product.active").is(Boolean.class)).isTrue();
+        assertThat(json.dget("product.count").is(Integer.class)).isTrue();
+        assertThat(json.dget("product.count").isString()).isFalse();
+    }
+
+    @Test
+    public void children() {
+        Dynamic product = new JsonDynamic(JSON).get("product");
+        assertThat(product.children().map(c -> c.key().asString()).collect(toList()))
+            .containsExactly("name", "investments", "active", "missing", "empty", "count", "huge", "unicode");
+        assertThat(product.get("empty").isLeaf()).isTrue();
+        assertThat(new JsonDynamic(JSON).allChildren().filter(Dynamic::isPresent).count())
+            .isEqualTo(Dynamic.from(new JsonDynamic(JSON).asObject()).allChildren().filter(Dynamic::isPresent).count());
+    }
+
+    @Test
+    public void readsAreCached() {
+        Dynamic json = new JsonDynamic(JSON);
+        assertThat(json.dget("product.investments.1.id")).isSameAs(json.dget("product.investments.1.id"));
+    }
+
+    @Test
+    public void equality() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a", asList(1, "two", false));
+        expected.put("b", null);
+
+        Dynamic json = new JsonDynamic(" {\"a\": [1, \"two\", false], \"b\": null} ");
+        assertThat(json.asObject()).isEqualTo(expected);
+        assertThat(json).isEqualTo(new JsonDynamic("{\"a\":[1,\"two\",false],\"b\":null}"));
+        assertThat(json.hashCode()).isEqualTo(new JsonDynamic("{\"a\":[1,\"two\",false],\"b\":null}").hashCode());
+        assertThat(json).isNotEqualTo(new JsonDynamic("{\"a\":[1,\"two\",true],\"b\":null}"));
+    }
+
+    @Test
+    public void byteBuffers() {
+        byte[] bytes = JSON.getBytes(UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2).put((byte) ' ').put(bytes);
+        direct.flip();
+        direct.position(1);
+
+        assertThat(new JsonDynamic(direct).dget("product.unicode").asString()).isEqualTo("é中");
+        assertThat(direct.position()).isEqualTo(1);
+        assertThat(new JsonDynamic(direct)).isEqualTo(new JsonDynamic(JSON));
+    }
+
+    @Test
+    public void topLevelValues() {
+        assertThat(new JsonDynamic("[1, 2]").get(1).asObject()).isEqualTo(2);
+        assertThat(new JsonDynamic("\"hello\"").asString()).isEqualTo("hello");
+        assertThat(new JsonDynamic("null").isPresent()).isFalse();
+        assertThat(new JsonDynamic("null").get("a").isPresent()).isFalse();
+    }
+
+    @Test
+    public void malformed() {
+        assertThatThrownBy(() -> new JsonDynamic("  ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JsonDynamic("{\"a\": 1").get("a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JsonDynamic("{\"a\" 1}").get("a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JsonDynamic("{\"a\": tru}").get("a").asObject())
+            .isInstanceOf(IllegalArgumentException.class);
+
+        // lazily read, so malformed unread values don't fail
+        assertThat(new JsonDynamic("{\"a\": 1, \"b\": [1, 2, nope]}").get("a").asObject()).isEqualTo(1);
+    }
+
+    @Test
+    public void malformedNumbers() {
+        for (String number : asList("1.5f", "1d", "0x10", "+1", "01", "-", "1.", ".5", "1e", "1e+", "-01", "NaN",
+            "Infinity", "1_000")) {
+            assertThatThrownBy(() -> new JsonDynamic("{\"a\": " + number + "}").get("a").asObject())
+                .as(number)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(new JsonDynamic("[0, -0, 10, -1.5, 1e3, 1E-2, 0.5e+1, 12345678901234567890]").asObject())
+            .isEqualTo(asList(0, 0, 10, -1.5, 1000d, 0.01, 5d, new BigDecimal("12345678901234567890")));
+    }
+
+    @Test
+    public void trailingContent() {
+        for (String json : asList("{\"a\": 1} x", "{\"a\": 1}}", "[1, 2] [3]", "1 2", "\"a\" \"b\"", "true false")) {
+            assertThatThrownBy(() -> new JsonDynamic(json))
+                .as(json)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("expected end of input");
+        }
+        assertThat(new JsonDynamic(" \n{\"a\": 1}\r\n ").get("a").asObject()).isEqualTo(1);
+    }
+
+    @Test
+    public void lines(@TempDir Path dir) throws IOException {
+        Path ndjson = dir.resolve("records.ndjson");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            lines.append("{\"id\": ").append(i).append(", \"level\": \"").append(i % 10 == 0 ? "ERROR" : "INFO")
+                .append("\", \"msg\": \"record é ").append(i).append("\"}").append(i % 2 == 0 ? "\n" : "\r\n");
+            if (i % 1000 == 0) lines.append("\n  \n");
+        }
+        Files.write(ndjson, lines.toString().getBytes(UTF_8));
+
+        assertThat(JsonDynamic.lines(ndjson).map(record -> record.get("id").asObject()).collect(toList()))
+            .isEqualTo(IntStream.range(0, 20_000).boxed().collect(toList()));
+        assertThat(JsonDynamic.lines(ndjson).parallel()
+            .filter(record -> record.get("level").asString().equals("ERROR"))
+            .mapToLong(record -> record.get("id").convert().intoLong())
+            .sum())
+            .isEqualTo(IntStream.range(0, 20_000).filter(i -> i % 10 == 0).asLongStream().sum());
+        assertThat(JsonDynamic.lines(ndjson).parallel().map(r -> r.get("msg").asString()).collect(toList()))
+            .endsWith("record é 19999");
+    }
+
+    @Test
+    public void emptyLines(@TempDir Path dir) throws IOException {
+        Path empty = Files.createFile(dir.resolve("empty.ndjson"));
+        assertThat(JsonDynamic.lines(empty).count()).isZero();
+
+        Path unterminated = Files.write(dir.resolve("unterminated.ndjson"), "{\"a\":1}\n\n[2]".getBytes(UTF_8));
+        assertThat(JsonDynamic.lines(unterminated).map(Dynamic::asObject).collect(toList()))
+            .containsExactly(singletonMap("a", 1), singletonList(2));
+    }
+}
@@ -0,0 +1,103 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.DynamicMetrics;
+import alexh.weak.InMemoryDynamicMetrics;
+import alexh.weak.PathSet;
+import alexh.weak.XmlDynamic;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class PathSetTest {
+
+    private static final String[] PATHS = {
+        "order.customer.name",
+        "order.customer.address.city",
+        "order.lines.0.sku",
+        "order.lines.1.sku",
+        "order.lines.2.sku",
+        "order.customer.missing.deeper",
+        "order.id.deeper",
+        "order.customer.name",
+        "order",
+        "..",
+        "order..id",
+        "order.id." };
+
+    private final Dynamic dy = Dynamic.from(new Fluent.HashMap<>()
+        .append("order", new Fluent.HashMap<>()
+            .append("id", 1234)
+            .append("customer", new Fluent.HashMap<>()
+                .append("name", "some name")
+                .append("address", new Fluent.HashMap<>().append("city", "London")))
+            .append("lines", asList(
+                new Fluent.HashMap<>().append("sku", "A-1"),
+                new Fluent.HashMap<>().append("sku", "B-2")))));
+
+    @Test
+    public void selectIsEquivalentToDget() {
+        Dynamic[] selected = PathSet.of(PATHS).select(dy);
+
+        assertThat(selected).hasSize(PATHS.length);
+        for (int i = 0; i < PATHS.length; i++) {
+            Dynamic expected = dy.dget(PATHS[i]);
+            assertThat(selected[i]).as(PATHS[i]).isEqualTo(expected);
+            assertThat(selected[i].isPresent()).as(PATHS[i]).isEqualTo(expected.isPresent());
+            assertThat(selected[i].toString()).as(PATHS[i]).isEqualTo(expected.toString());
+        }
+        assertThat(selected[0].asString()).isEqualTo("some name");
+        assertThat(selected[1].asString()).isEqualTo("London");
+        assertThat(selected[4].isPresent()).isFalse();
+        assertThat(selected[9]).isSameAs(dy);
+    }
+
+    @Test
+    public void selectFromDynamic() {
+        Dynamic[] selected = dy.select("order.customer.name", "order.lines.1.sku");
+
+        assertThat(selected[0].asString()).isEqualTo("some name");
+        assertThat(selected[1].asString()).isEqualTo("B-2");
+    }
+
+    @Test
+    public void sharedPrefixesAreGotOnce() {
+        InMemoryDynamicMetrics metrics = new InMemoryDynamicMetrics();
+        DynamicMetrics.register(metrics);
+        try {
+            PathSet.of("order.customer.name", "order.customer.address.city", "order.lines.0.sku").select(dy);
+        }
+        finally {
+            DynamicMetrics.unregister();
+        }
+
+        // order, customer, name, address, city, lines, 0, sku
+        assertThat(metrics.snapshot().hits()).isEqualTo(8);
+    }
+
+    @Test
+    public void selectMap() {
+        Map<String, Dynamic> selected = PathSet.of("order.customer.name", "order.id").selectMap(dy);
+
+        assertThat(selected.keySet()).containsExactly("order.customer.name", "order.id");
+        assertThat(selected.get("order.id").asObject()).isEqualTo(1234);
+    }
+
+    @Test
+    public void selectXml() {
+        XmlDynamic xml = new XmlDynamic("<order><customer><name>some name</name><id>12</id></customer></order>");
+
+        Dynamic[] selected = PathSet.of("order.customer.name", "order.customer.id", "order.customer.nope").select(xml);
+
+        assertThat(selected[0].asString()).isEqualTo("some name");
+        assertThat(selected[1].convert().intoInteger()).isEqualTo(12);
+        assertThat(selected[2].isPresent()).isFalse();
+    }
+
+    @Test
+    public void paths() {
+        assertThat(PathSet.of(PATHS).paths()).containsExactly(PATHS);
+        assertThat(PathSet.of().select(dy)).isEmpty();
+    }
+}
@@ -0,0 +1,122 @@
+package alexh;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.weak.DynamicMetrics;
+import alexh.weak.InMemoryDynamicMetrics;
+import alexh.weak.XmlDynamic;
+import alexh.weak.XmlDynamicParser;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+public class XmlDynamicParserTest {
+
+    private static String message(int id) {
+        return "<msg xmlns:s=\"http://example.com/s\"><id>" + id + "</id><s:value>v" + id + "</s:value></msg>";
+    }
+
+    @Test
+    public void parse() {
+        XmlDynamicParser parser = new XmlDynamicParser();
+        XmlDynamic xml = parser.parse(DynamicXmlTest.XML);
+
+        assertThat(xml).isEqualTo(new XmlDynamic(DynamicXmlTest.XML));
+        assertThat(xml.get("xml|content_1|int_element").asString()).isEqualTo("12345");
+        assertThat(parser.parse(message(1).getBytes(UTF_8)).get("msg|http://example.com/s::value").asString())
+            .isEqualTo("v1");
+    }
+
+    @Test
+    public void parseAllInOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            XmlDynamicParser parser = new XmlDynamicParser(executor, 4);
+            List<String> ids = parser.parseAll(IntStream.range(0, 500)
+                    .mapToObj(i -> i % 2 == 0 ? message(i) : message(i).getBytes(UTF_8)))
+                .map(xml -> xml.get("msg|id").asString())
+                .collect(toList());
+
+            assertThat(ids).isEqualTo(IntStream.range(0, 500).mapToObj(String::valueOf).collect(toList()));
+        }
+        finally { executor.shutdown(); }
+    }
+
+    @Test
+    public void parseAllReadsAheadBoundedly() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            XmlDynamicParser parser = new XmlDynamicParser(executor, 2);
+            AtomicInteger read = new AtomicInteger();
+            Iterator<XmlDynamic> parsed = parser.parseAll(Stream.iterate(0, i -> i + 1)
+                    .map(XmlDynamicParserTest::message)
+                    .peek(xml -> read.incrementAndGet()))
+                .iterator();
+
+            assertThat(read).hasValue(0);
+            for (int i = 0; i < 10; i++) {
+                assertThat(parsed.next().get("msg|id").asString()).isEqualTo(String.valueOf(i));
+                assertThat(read.get()).isLessThanOrEqualTo(i + 2);
+            }
+        }
+        finally { executor.shutdown(); }
+    }
+
+    @Test
+    public void parsesAreInstrumented() {
+        InMemoryDynamicMetrics metrics = new InMemoryDynamicMetrics();
+        DynamicMetrics.register(metrics);
+        try {
+            XmlDynamicParser parser = new XmlDynamicParser();
+            parser.parse(message(1));
+            parser.parseAll(Stream.of(message(2), message(3).getBytes(UTF_8))).forEach(xml -> {});
+        }
+        finally { DynamicMetrics.unregister(); }
+
+        assertThat(metrics.snapshot().xmlParses()).isEqualTo(3);
+    }
+
+    @Test
+    public void parseAllFailures() {
+        XmlDynamicParser parser = new XmlDynamicParser();
+
+        assertThatThrownBy(() -> parser.parseAll(Stream.of(message(1), "<msg>", message(2))).collect(toList()))
+            .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> parser.parseAll(Stream.of(message(1), 123)).collect(toList()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        // failed parses don't break pooled parsers
+        assertThat(parser.parse(message(3)).get("msg|id").asString()).isEqualTo("3");
+        assertThat(parser.stats().failed()).isEqualTo(1);
+    }
+
+    @Test
+    public void stats() {
+        XmlDynamicParser parser = new XmlDynamicParser();
+        assertThat(parser.stats().latencyPercentile(0.5, TimeUnit.NANOSECONDS)).isZero();
+
+        parser.parseAll(IntStream.range(0, 100).mapToObj(XmlDynamicParserTest::message)).forEach(xml -> {});
+        XmlDynamicParser.Stats stats = parser.stats();
+
+        assertThat(stats.parsed()).isEqualTo(100);
+        assertThat(stats.failed()).isZero();
+        assertThat(stats.throughputPerSecond()).isPositive();
+        assertThat(stats.meanLatency(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(stats.latencyPercentile(0.5, TimeUnit.NANOSECONDS))
+            .isPositive()
+            .isLessThanOrEqualTo(stats.latencyPercentile(1, TimeUnit.NANOSECONDS));
+        assertThat(stats.latencyPercentile(1, TimeUnit.NANOSECONDS))
+            .isGreaterThanOrEqualTo((long) stats.meanLatency(TimeUnit.NANOSECONDS));
+        assertThat(Arrays.stream(stats.latencyHistogram()).sum()).isEqualTo(100);
+        assertThat(stats.toString()).contains("parsed=100");
+    }
+}
@@ -0,0 +1,153 @@
+package alexh;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import alexh.weak.XmlExtractor;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class XmlExtractorTest {
+
+    static final String XML =
+        "<order xmlns:s=\"http://example.com/s\">" +
+            "<id>order-1</id>" +
+            "<customer ref=\"cust-1\" id=\"attr-id\">" +
+                "<name>Some Name</name>" +
+                "<id>element-id</id>" +
+            "</customer>" +
+            "<lines>" +
+                "<line><sku>sku-0</sku></line>" +
+                "<s:line><sku>sku-s</sku></s:line>" +
+                "<line><sku>sku-1</sku><![CDATA[ignored]]></line>" +
+            "</lines>" +
+            "<empty/>" +
+            "<ignored><deep><deeper>skip me</deeper></deep></ignored>" +
+        "</order>";
+
+    private static void assertMatchesXmlDynamic(String... paths) {
+        assertExtractMatchesXmlDynamic(XML, paths);
+    }
+
+    private static void assertExtractMatchesXmlDynamic(String input, String... paths) {
+        Map<String, String> extracted = XmlExtractor.compile(paths).extract(input);
+        Dynamic xml = new XmlDynamic(input);
+
+        for (String path : paths) {
+            Dynamic expected = xml.get(path);
+            if (expected.isPresent()) assertThat(extracted.get(path)).as(path).isEqualTo(expected.asString());
+            else assertThat(extracted).as(path).doesNotContainKey(path);
+        }
+    }
+
+    @Test
+    public void elements() {
+        assertMatchesXmlDynamic("order|id", "order|customer|name", "order|empty");
+    }
+
+    @Test
+    public void attributes() {
+        assertMatchesXmlDynamic("order|customer|@ref", "order|customer|ref", "order|customer|@id");
+    }
+
+    @Test
+    public void elementsOverrideAttributes() {
+        assertMatchesXmlDynamic("order|customer|id");
+        assertThat(XmlExtractor.compile("order|customer|id").extract(XML))
+            .containsEntry("order|customer|id", "element-id");
+    }
+
+    @Test
+    public void indices() {
+        assertMatchesXmlDynamic("order|lines|line|sku", "order|lines|line[0]|sku", "order|lines|line[1]|sku",
+            "order|lines|line[2]|sku", "order|lines|line[3]|sku");
+    }
+
+    @Test
+    public void namespaces() {
+        assertMatchesXmlDynamic("order|lines|http://example.com/s::line|sku", "order|lines|none::line[1]|sku",
+            "order|lines|none::line[2]|sku");
+    }
+
+    @Test
+    public void missing() {
+        assertMatchesXmlDynamic("order|nope", "order|id|deeper", "order[1]|id", "nope|id", "order|customer|@nope");
+    }
+
+    @Test
+    public void sharedPrefixes() {
+        Map<String, String> extracted = XmlExtractor.compile("order|id", "order|customer|name", "order|customer|@ref",
+            "order|lines|line[1]|sku", "order|lines|line[0]|sku")
+            .extract(XML);
+
+        assertThat(extracted)
+            .hasSize(5)
+            .containsEntry("order|id", "order-1")
+            .containsEntry("order|customer|name", "Some Name")
+            .containsEntry("order|customer|@ref", "cust-1")
+            .containsEntry("order|lines|line[0]|sku", "sku-0")
+            .containsEntry("order|lines|line[1]|sku", "sku-s");
+    }
+
+    @Test
+    public void equivalentPaths() {
+        assertThat(XmlExtractor.compile("order|id", "order[0]|id[0]").extract(XML))
+            .containsEntry("order|id", "order-1")
+            .containsEntry("order[0]|id[0]", "order-1");
+    }
+
+    @Test
+    public void bytes() {
+        assertThat(XmlExtractor.compile("order|id").extract(new ByteArrayInputStream(XML.getBytes(UTF_8))))
+            .containsEntry("order|id", "order-1");
+    }
+
+    @Test
+    public void reusable() {
+        XmlExtractor extractor = XmlExtractor.compile("msg|value");
+        assertThat(extractor.extract("<msg><value>1</value></msg>")).containsEntry("msg|value", "1");
+        assertThat(extractor.extract("<msg><value>2</value></msg>")).containsEntry("msg|value", "2");
+    }
+
+    @Test
+    public void firstChildValues() {
+        String xml = "<r>" +
+            "<text>foo<![CDATA[bar]]></text>" +
+            "<cdata><![CDATA[bar]]>foo</cdata>" +
+            "<comment><!--note-->foo</comment>" +
+            "<pi><?target data?>foo</pi>" +
+            "<entities>a&amp;b&#65;c<![CDATA[ignored]]></entities>" +
+            "<space>  <![CDATA[x]]></space>" +
+        "</r>";
+
+        assertExtractMatchesXmlDynamic(xml, "r|text", "r|cdata", "r|comment", "r|pi", "r|entities", "r|space");
+        assertThat(XmlExtractor.compile("r|text", "r|comment", "r|entities").extract(xml))
+            .containsEntry("r|text", "foo")
+            .containsEntry("r|comment", "note")
+            .containsEntry("r|entities", "a&bAc");
+    }
+
+    @Test
+    public void differencesFromXmlDynamic() {
+        String xml = "<r><cdatas><![CDATA[x]]><![CDATA[y]]></cdatas><parent><child>1</child></parent></r>";
+        Dynamic dynamic = new XmlDynamic(xml);
+
+        assertThat(dynamic.get("r|cdatas").asString()).isEqualTo("x");
+        assertThat(dynamic.get("r|parent").asString()).isEqualTo("<child>1</child>");
+        assertThat(XmlExtractor.compile("r|cdatas", "r|parent").extract(xml))
+            .containsEntry("r|cdatas", "xy")
+            .containsEntry("r|parent", "");
+    }
+
+    @Test
+    public void attributeFallbacksStopReading() {
+        // malformed after the element providing the fallback ends, so only readable if reading stops there
+        String xml = "<r><a id=\"1\"><b/></a><broken <<</r>";
+        assertThat(XmlExtractor.compile("r|a|id").extract(xml)).containsEntry("r|a|id", "1");
+        assertThat(XmlExtractor.compile("r|a|id", "r|a|b").extract(xml))
+            .containsEntry("r|a|id", "1")
+            .containsEntry("r|a|b", "");
+    }
+}
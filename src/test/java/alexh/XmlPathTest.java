@@ -0,0 +1,90 @@
+package alexh;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.weak.Dynamic;
+import alexh.weak.XmlDynamic;
+import alexh.weak.XmlPath;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class XmlPathTest {
+
+    static final List<String> PATHS = asList(
+        "xml|content_1|int_element",
+        "xml[0]|content_1[0]|int_element[0]",
+        "xml|content_1|multi_empty_element[2]",
+        "xml|content_1|multi_empty_element[3]",
+        "xml|content_1|just_attrs|hello",
+        "xml|content_1|just_attrs|@foo",
+        "xml|content_1|just_attrs|@foo[1]",
+        "xml|content_2|attr_clasher|age",
+        "xml|content_2|attr_clasher|@age",
+        "xml|content_2|multi_element[01]",
+        "xml|content_2|string_element|foo|bar",
+        "xml|nope|foo",
+        "xml|s::content",
+        "xml|http://example.com/rootspace/something::content|int_element",
+        "xml|http://another-example.com::content|none::multi_element",
+        "xml|http://another-example.com::content|http://example.com/rootspace/something::multi_element[0]",
+        "xml|content[1]|http://another-example.com::multi_element",
+        "xml|three-and-two|http://another-example.com::hey[1]",
+        "xml|three-and-two|hey[4]",
+        "xml|content|ns_attrs|http://another-example.com::@same-name",
+        "xml|content|ns_attrs|same-name[1]",
+        "xml|content|ns_attrs|@same-name[1]",
+        "xml||content",
+        "root");
+
+    static Object valueOrMessage(Dynamic dynamic) {
+        try { return dynamic.asObject(); }
+        catch (NoSuchElementException ex) { return ex.getMessage(); }
+    }
+
+    private static void assertSameAsStringGets(String xml) {
+        Dynamic root = new XmlDynamic(xml);
+        for (String path : PATHS) {
+            Dynamic compiled = root.get(XmlPath.compile(path));
+            Dynamic uncompiled = root.get(path, "|");
+
+            assertThat(compiled.isPresent()).as(path).isEqualTo(uncompiled.isPresent());
+            assertThat(valueOrMessage(compiled)).as(path).isEqualTo(valueOrMessage(uncompiled));
+            assertThat(compiled.toString()).as(path).isEqualTo(uncompiled.toString());
+        }
+    }
+
+    @Test
+    public void sameAsStringGets() {
+        assertSameAsStringGets(DynamicXmlTest.XML);
+        assertSameAsStringGets(DynamicXmlNamespaceTest.XML);
+    }
+
+    @Test
+    public void reusableAcrossDocuments() {
+        XmlPath path = XmlPath.compile("msg|value[1]|@id");
+        assertThat(new XmlDynamic("<msg><value/><value id=\"1\"/></msg>").get(path).asString()).isEqualTo("1");
+        assertThat(new XmlDynamic("<msg><value/><value id=\"2\"/></msg>").get(path).asString()).isEqualTo("2");
+        assertThat(new XmlDynamic("<msg><value id=\"0\"/></msg>").get(path).isPresent()).isFalse();
+    }
+
+    @Test
+    public void reusableAcrossThreads() {
+        XmlPath path = XmlPath.compile("xml|content_1|int_element");
+        List<CompletableFuture<String>> results = IntStream.range(0, 50)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() ->
+                new XmlDynamic(DynamicXmlTest.XML).get(path).asString()))
+            .collect(toList());
+
+        assertThat(results.stream().map(CompletableFuture::join)).allMatch("12345"::equals);
+    }
+
+    @Test
+    public void toStringIsPath() {
+        assertThat(XmlPath.compile("a|b[1]|@c").toString()).isEqualTo("a|b[1]|@c");
+        assertThat(XmlPath.compile("a|b")).isEqualTo(XmlPath.compile("a|b"));
+    }
+}